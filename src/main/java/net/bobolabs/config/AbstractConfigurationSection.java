@@ -0,0 +1,504 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Base class for {@link ConfigurationSection} implementations which provides all typed
+ * getters on top of {@link #get(String)}, {@link #get(String, Object)} and {@link #getList(String)}.
+ */
+abstract class AbstractConfigurationSection implements ConfigurationSection {
+
+    private static final Map<Class<?>, Function<Object, ?>> mappers = new HashMap<>();
+
+    static {
+        // numeric types
+        mappers.put(Byte.class, o -> (o instanceof Number n) ? n.byteValue() : null);
+        mappers.put(Short.class, o -> (o instanceof Number n) ? n.shortValue() : null);
+        mappers.put(Integer.class, o -> (o instanceof Number n) ? n.intValue() : null);
+        mappers.put(Long.class, o -> (o instanceof Number n) ? n.longValue() : null);
+        mappers.put(Float.class, o -> (o instanceof Number n) ? n.floatValue() : null);
+        mappers.put(Double.class, o -> (o instanceof Number n) ? n.doubleValue() : null);
+
+        // special types
+        mappers.put(Boolean.class, o -> (o instanceof Boolean b) ? b : null);
+        mappers.put(String.class, o -> (o != null) ? Objects.toString(o) : null);
+    }
+
+    static final UnaryOperator<String> NO_MAPPING_FOUND = path -> "no mapping found for path `" + path + "` in configuration section";
+
+    static final char SEPARATOR = '.';
+
+    @Override
+    public void setInt(@NotNull String path, int value) {
+        set(path, value);
+    }
+
+    @Override
+    public void setLong(@NotNull String path, long value) {
+        set(path, value);
+    }
+
+    @Override
+    public void setDouble(@NotNull String path, double value) {
+        set(path, value);
+    }
+
+    @Override
+    public void setBoolean(@NotNull String path, boolean value) {
+        set(path, value);
+    }
+
+    @Override
+    public void setString(@NotNull String path, @Nullable String value) {
+        set(path, value);
+    }
+
+    @Override
+    public void setEnum(@NotNull String path, @Nullable Enum<?> value) {
+        set(path, value != null ? value.name() : null);
+    }
+
+    @Override
+    public void setIntList(@NotNull String path, int @NotNull [] values) {
+        set(path, addAll(new ArrayList<>(values.length), values));
+    }
+
+    @Override
+    public void setLongList(@NotNull String path, long @NotNull [] values) {
+        set(path, addAll(new ArrayList<>(values.length), values));
+    }
+
+    @Override
+    public void setDoubleList(@NotNull String path, double @NotNull [] values) {
+        set(path, addAll(new ArrayList<>(values.length), values));
+    }
+
+    @Override
+    public void setBooleanList(@NotNull String path, boolean @NotNull [] values) {
+        set(path, addAll(new ArrayList<>(values.length), values));
+    }
+
+    @Override
+    public @Nullable Object compute(@NotNull String path, @NotNull UnaryOperator<@Nullable Object> function) {
+        // optimistic update: the function is applied again if the value changed in the meantime
+        while (true) {
+            Object current = get(path, null);
+            Object value = function.apply(current);
+            if (compareAndSet(path, current, value)) {
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public int computeInt(@NotNull String path, @NotNull IntUnaryOperator function) {
+        Object ret = compute(path, current -> {
+            if (current == null) {
+                return function.applyAsInt(0);
+            } else if (current instanceof Number n) {
+                return function.applyAsInt(n.intValue());
+            }
+            throw new ConfigurationTypeException(path, Integer.class, current);
+        });
+        return (Integer) Objects.requireNonNull(ret);
+    }
+
+    @Override
+    public void copySection(@NotNull String from, @NotNull String to) {
+        set(to, toMap(getSection(from)));
+    }
+
+    @Override
+    public void merge(@NotNull Map<?, ?> source, @NotNull MergePolicy policy) {
+        merge("", source, policy);
+    }
+
+    @Override
+    public void merge(@NotNull ConfigurationSection source, @NotNull MergePolicy policy) {
+        merge(toMap(source), policy);
+    }
+
+    @Override
+    public void appendToList(@NotNull String path, @Nullable Object value) {
+        Object element = normalize(value);
+        updateList(path, true, list -> list.add(element));
+    }
+
+    @Override
+    public void insertListElement(@NotNull String path, int index, @Nullable Object value) {
+        Object element = normalize(value);
+        updateList(path, false, list -> {
+            list.add(index, element);
+            return null;
+        });
+    }
+
+    @Override
+    public @Nullable Object setListElement(@NotNull String path, int index, @Nullable Object value) {
+        Object element = normalize(value);
+        return updateList(path, false, list -> list.set(index, element));
+    }
+
+    @Override
+    public @Nullable Object removeListElement(@NotNull String path, int index) {
+        return updateList(path, false, list -> list.remove(index));
+    }
+
+    @Override
+    public byte getByte(@NotNull String path) {
+        return getType(path, Byte.class);
+    }
+
+    @Override
+    public byte getByte(@NotNull String path, byte def) {
+        return getType(path, Byte.class, def);
+    }
+
+    @Override
+    public @NotNull List<@NotNull Byte> getByteList(@NotNull String path) {
+        return getTypeList(path, Byte.class);
+    }
+
+    @Override
+    public short getShort(@NotNull String path) {
+        return getType(path, Short.class);
+    }
+
+    @Override
+    public short getShort(@NotNull String path, short def) {
+        return getType(path, Short.class, def);
+    }
+
+    @Override
+    public @NotNull List<@NotNull Short> getShortList(@NotNull String path) {
+        return getTypeList(path, Short.class);
+    }
+
+    @Override
+    public int getInt(@NotNull String path) {
+        return getType(path, Integer.class);
+    }
+
+    @Override
+    public int getInt(@NotNull String path, int def) {
+        return getType(path, Integer.class, def);
+    }
+
+    @Override
+    public @NotNull List<@NotNull Integer> getIntList(@NotNull String path) {
+        return getTypeList(path, Integer.class);
+    }
+
+    @Override
+    public long getLong(@NotNull String path) {
+        return getType(path, Long.class);
+    }
+
+    @Override
+    public long getLong(@NotNull String path, long def) {
+        return getType(path, Long.class, def);
+    }
+
+    @Override
+    public @NotNull List<@NotNull Long> getLongList(@NotNull String path) {
+        return getTypeList(path, Long.class);
+    }
+
+    @Override
+    public float getFloat(@NotNull String path) {
+        return getType(path, Float.class);
+    }
+
+    @Override
+    public float getFloat(@NotNull String path, float def) {
+        return getType(path, Float.class, def);
+    }
+
+    @Override
+    public @NotNull List<@NotNull Float> getFloatList(@NotNull String path) {
+        return getTypeList(path, Float.class);
+    }
+
+    @Override
+    public double getDouble(@NotNull String path) {
+        return getType(path, Double.class);
+    }
+
+    @Override
+    public double getDouble(@NotNull String path, double def) {
+        return getType(path, Double.class, def);
+    }
+
+    @Override
+    public @NotNull List<@NotNull Double> getDoubleList(@NotNull String path) {
+        return getTypeList(path, Double.class);
+    }
+
+    @Override
+    public boolean getBoolean(@NotNull String path) {
+        return getType(path, Boolean.class);
+    }
+
+    @Override
+    public boolean getBoolean(@NotNull String path, boolean def) {
+        return getType(path, Boolean.class, def);
+    }
+
+    @Override
+    public @NotNull List<@NotNull Boolean> getBooleanList(@NotNull String path) {
+        return getTypeList(path, Boolean.class);
+    }
+
+    @Override
+    public @NotNull String getString(@NotNull String path) {
+        return getType(path, String.class);
+    }
+
+    @Override
+    public @Nullable String getString(@NotNull String path, @Nullable String def) {
+        return getType(path, String.class, def);
+    }
+
+    @Override
+    public @NotNull List<@NotNull String> getStringList(@NotNull String path) {
+        return getTypeList(path, String.class);
+    }
+
+    @Override
+    public <T extends Enum<T>> @NotNull T getEnum(@NotNull String path, @NotNull Class<T> enumClass) {
+        // lock not needed as get already worries about that
+        Object obj = get(path);
+        T ret = mapToEnum(enumClass, obj, null);
+        if (ret == null) {
+            throw new ConfigurationTypeException(path, enumClass, obj);
+        }
+        return ret;
+    }
+
+    @Override
+    public <T extends Enum<T>> @Nullable T getEnum(@NotNull String path, @NotNull Class<T> enumClass, @Nullable T def) {
+        // lock not needed as get already worries about that
+        Object obj = get(path, null);
+        T ret = mapToEnum(enumClass, obj, def);
+        if (ret == null && obj != null) {
+            throw new ConfigurationTypeException(path, enumClass, obj);
+        }
+        return ret;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NotNull <T extends Enum<T>> List<@NotNull T> getEnumList(@NotNull String path, @NotNull Class<T> enumClass) {
+        // lock not needed as getList already worries about that and returns a new collection
+        List<Object> objs = getList(path);
+        List<T> ret = new ArrayList<>();
+        for (Object obj : objs) {
+            T entry = mapToEnum(enumClass, obj, null);
+            if (entry != null) {
+                ret.add(entry);
+            } else {
+                throw new ConfigurationListTypeException(path, enumClass, objs, obj);
+            }
+        }
+        return ret;
+    }
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    // returns a tree with the contents of the given section, which is consistent if the section is stored by a configuration
+    static @NotNull Map<String, Object> toMap(@NotNull ConfigurationSection section) {
+        if (section instanceof Configuration config) {
+            section = config.getRootSection();
+        }
+        if (section instanceof ConfigurationSectionImpl impl) {
+            impl.getRoot().readLock().lock();
+            try {
+                return impl.snapshot();
+            } finally {
+                impl.getRoot().readLock().unlock();
+            }
+        }
+
+        Map<String, Object> ret = new LinkedHashMap<>();
+        for (String key : section.getKeys(TraversalMode.ROOT)) {
+            Object value = section.get(key, null);
+            ret.put(key, value instanceof ConfigurationSection sub ? toMap(sub) : value);
+        }
+        return ret;
+    }
+
+    // merges each value on its own, implementations which store values should rather merge the whole tree at once
+    private void merge(@NotNull String prefix, @NotNull Map<?, ?> source, @NotNull MergePolicy policy) {
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            String path = prefix + entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Map<?, ?> map && get(path, null) instanceof ConfigurationSection) {
+                merge(path + SEPARATOR, map, policy);
+            } else if (value != null && policy == MergePolicy.KEEP_EXISTING) {
+                compareAndSet(path, null, value);
+            } else if (value != null) {
+                compute(path, current -> policy.merge(current, value));
+            }
+        }
+    }
+
+    // values are stored the same way they are loaded from file
+    static @Nullable Object normalize(@Nullable Object value) {
+        if (value instanceof Enum<?> e) {
+            return e.name();
+        } else if (value instanceof Byte b) {
+            return b.intValue();
+        }
+        return value;
+    }
+
+    static <L extends List<Object>> @NotNull L addAll(@NotNull L list, int @NotNull [] values) {
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    static <L extends List<Object>> @NotNull L addAll(@NotNull L list, long @NotNull [] values) {
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    static <L extends List<Object>> @NotNull L addAll(@NotNull L list, double @NotNull [] values) {
+        for (double value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    static <L extends List<Object>> @NotNull L addAll(@NotNull L list, boolean @NotNull [] values) {
+        for (boolean value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    // replaces the list mapped to path with an updated copy, implementations
+    // which store lists should rather change them in place whenever possible
+    @SuppressWarnings("unchecked")
+    <R> R updateList(@NotNull String path, boolean create, @NotNull Function<List<Object>, R> update) {
+        Object[] ret = new Object[1];
+        compute(path, current -> {
+            List<Object> list;
+            if (current instanceof List<?> l) {
+                list = new ArrayList<>(l);
+            } else if (current != null) {
+                throw new ConfigurationTypeException(path, List.class, current);
+            } else if (create) {
+                list = new ArrayList<>();
+            } else {
+                String message = NO_MAPPING_FOUND.apply(path);
+                throw new NullPointerException(message);
+            }
+            ret[0] = update.apply(list);
+            return list;
+        });
+        return (R) ret[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    <T extends Enum<T>> @Nullable T mapToEnum(@NotNull Class<T> enumClass, @Nullable Object obj, @Nullable T def) {
+        T ret = null;
+        if (obj == null) {
+            if (def != null) {
+                ret = def;
+            }
+        } else if (obj instanceof String str) {
+            try {
+                str = str.toUpperCase();
+                return Enum.valueOf(enumClass, str);
+            } catch (IllegalArgumentException ignored) {
+                // simply return null
+            }
+        } else {
+            try {
+                ret = (T) obj;
+            } catch (ClassCastException ignored) {
+                // simply return null
+            }
+        }
+        return ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull <T> Function<Object, @Nullable T> getMapperFor(@NotNull Class<T> type) {
+        return (Function<Object, @Nullable T>) mappers.get(type);
+    }
+
+    <T> @NotNull T getType(@NotNull String path, @NotNull Class<T> type) {
+        Object obj = get(path);
+        T ret = getMapperFor(type).apply(obj);
+        if (ret == null) {
+            throw new ConfigurationTypeException(path, type, obj);
+        }
+        return ret;
+    }
+
+    @Contract("_, _, !null -> !null")
+    <T> T getType(@NotNull String path, @NotNull Class<T> type, @Nullable T def) {
+        Object obj = get(path, null);
+        if (obj == null) {
+            return def;
+        } else {
+            T ret = getMapperFor(type).apply(obj);
+            if (ret == null) {
+                throw new ConfigurationTypeException(path, type, obj);
+            }
+            return ret;
+        }
+    }
+
+    @Contract("_, _ -> new")
+    <T> @NotNull List<@NotNull T> getTypeList(@NotNull String path, @NotNull Class<T> type) {
+        List<T> list = new ArrayList<>();
+        List<Object> ret = getList(path);
+        for (Object obj : ret) {
+            T value = getMapperFor(type).apply(obj);
+            if (value != null) {
+                list.add(value);
+            } else {
+                throw new ConfigurationListTypeException(path, type, ret, obj);
+            }
+        }
+        return list;
+    }
+
+}
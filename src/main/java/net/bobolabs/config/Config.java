@@ -74,6 +74,69 @@ public @interface Config {
     boolean autoSave() default ConfigDefaults.AUTO_SAVE;
 
 
+    /**
+     * Specifies, in milliseconds, how long auto save should wait for further changes
+     * before saving the associated {@link Configuration} in background.
+     * <p>
+     * Auto save is synchronous by default.
+     *
+     * @return how long auto save should wait for further changes before saving, in milliseconds.
+     * @see ConfigurationLoader#saveDelay(long, long, java.util.concurrent.TimeUnit)
+     * @since 2.3.0
+     */
+    long saveDelay() default ConfigDefaults.SAVE_DELAY;
+
+
+    /**
+     * Specifies, in milliseconds, the maximum time a change may wait before being saved
+     * when {@link #saveDelay()} is set.
+     * <p>
+     * If not specified, ten times {@link #saveDelay()} is used instead.
+     *
+     * @return the maximum time a change may wait before being saved, in milliseconds.
+     * @since 2.3.0
+     */
+    long maxSaveDelay() default ConfigDefaults.MAX_SAVE_DELAY;
+
+
+    /**
+     * Specifies how the associated {@link Configuration} file should be synchronized
+     * with the storage device when saving.
+     * <p>
+     * {@link SyncPolicy#NONE} by default.
+     *
+     * @return how the associated {@link Configuration} file should be synchronized with the storage device.
+     * @since 2.3.0
+     */
+    @NotNull SyncPolicy syncPolicy() default SyncPolicy.NONE;
+
+
+    /**
+     * Specifies whether changes made to the associated {@link Configuration} should be
+     * persisted through an append-only journal which is periodically compacted into the file.
+     * <p>
+     * Disabled by default.
+     *
+     * @return whether changes made to the associated {@link Configuration} should be persisted through a journal.
+     * @see ConfigurationLoader#journal(long, java.util.concurrent.TimeUnit)
+     * @since 2.3.0
+     */
+    boolean journal() default ConfigDefaults.JOURNAL;
+
+
+    /**
+     * Specifies whether the associated {@link Configuration} file should be compressed with gzip when saving.
+     * <p>
+     * Compression is detected when loading regardless of this option.
+     * Disabled by default.
+     *
+     * @return whether the associated {@link Configuration} file should be compressed with gzip when saving.
+     * @see ConfigurationLoader#codec(ConfigurationCodec)
+     * @since 2.3.0
+     */
+    boolean compressed() default ConfigDefaults.COMPRESSED;
+
+
     /**
      * Specifies whether the associated {@link Configuration} should be saved from the default
      * resource if the file is missing when {@link ConfigurationManager#load(Enum) ConfigurationManager.load()} variants are called.
@@ -86,4 +149,17 @@ public @interface Config {
      */
     boolean saveDefaultResource() default ConfigDefaults.SAVE_DEFAULT_RESOURCE;
 
+
+    /**
+     * Specifies whether the default resource should be kept in memory as an immutable
+     * fallback for any value that is missing from the associated {@link Configuration}.
+     * <p>
+     * Disabled by default.
+     *
+     * @return whether the default resource should be kept in memory as an immutable fallback.
+     * @see ConfigurationLoader#defaultFallback(boolean)
+     * @since 2.3.0
+     */
+    boolean defaultFallback() default ConfigDefaults.DEFAULT_FALLBACK;
+
 }
@@ -32,6 +32,18 @@ final class ConfigDefaults {
 
     static final boolean AUTO_SAVE = false;
 
+    static final long SAVE_DELAY = 0;
+
+    static final long MAX_SAVE_DELAY = 0;
+
+    static final SyncPolicy SYNC_POLICY = SyncPolicy.NONE;
+
+    static final boolean JOURNAL = false;
+
+    static final boolean COMPRESSED = false;
+
     static final boolean SAVE_DEFAULT_RESOURCE = true;
 
+    static final boolean DEFAULT_FALLBACK = false;
+
 }
@@ -25,14 +25,40 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.reader.UnicodeReader;
 import org.yaml.snakeyaml.representer.Representer;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
 
 
 /**
@@ -45,24 +71,108 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 public final class Configuration implements ConfigurationSection {
 
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong loadTickets = new AtomicLong();
+    // counters which may have pending updates, sorted so that those below a path are adjacent
+    private final ConcurrentNavigableMap<String, ConfigurationCounter> counters = new ConcurrentSkipListMap<>();
+    private final MutationQueue mutations = new MutationQueue(this);
+    private final SaveQueue saves = new SaveQueue(this);
     private final ReentrantReadWriteLock lock;
+    private final ReentrantReadWriteLock.WriteLock writeLock;
+    private final ReentrantLock saveLock;
+    private final ConfigurationOverrides overrides;
+    private final ReadOnlySection defaults;
+    private final ConfigurationJournal journal;
+    private final ConfigurationCodec preferredCodec;
+    private final FlushScheduler flushScheduler;
+    private final DebouncedSaver saver;
+    private final SyncPolicy syncPolicy;
     private final boolean autoSave;
+    private final boolean parallelSave;
+    private final ConfigurationEmitter emitter;
     private final File file;
     private final Yaml yaml;
 
-    private ConfigurationSectionImpl section;
-
-    Configuration(@NotNull File file, boolean autoSave) {
+    // periodic compaction of the journal, unless performed by the owner of the configuration, cancelled when unloading
+    private final ScheduledFuture<?> compaction;
+
+    private Map<String, Object> overrideIndex;
+
+    // replaced under the write lock when loading, read without locking by delegating methods
+    private volatile ConfigurationSectionImpl section;
+
+    // read-only view of the latest snapshot, discarded on each change
+    private volatile ReadOnlySection published;
+
+    // incremented on each change, guarded by the write lock
+    private long generation;
+
+    // ticket of the load which the current tree was read by, guarded by the write lock
+    private long loadedTicket;
+
+    // state of the source file as of the last load or save, guarded by the save lock which,
+    // when needed, must be acquired after the read-write lock and is never held while acquiring it
+    private long savedGeneration;
+    private byte[] fileDigest;
+    private FileTime fileModified;
+    private long fileSize;
+    private ConfigurationLayout layout;
+    private long layoutGeneration;
+    private ConfigurationCodec codec;
+
+    // generation of the last change of each root level key since the layout was taken, written while holding
+    // the write lock: blocks of keys which were not changed since then are copied from the layout when saving
+    private final Map<String, Long> changedRoots = new ConcurrentHashMap<>();
+
+    // whether the source file shares collections through aliases, which are then kept when saving
+    private boolean aliased;
+
+    // set once the source file is deleted, after which changes are not persisted anymore
+    private volatile boolean deleted;
+
+    // whether changes are to be auto saved by the thread releasing the write lock, guarded by the write lock
+    private boolean saveDue;
+
+    Configuration(@NotNull File file,
+                  boolean autoSave,
+                  long saveDelay,
+                  long maxSaveDelay,
+                  @NotNull SyncPolicy syncPolicy,
+                  long journalCompaction,
+                  boolean sharedCompaction,
+                  @Nullable ConfigurationCodec codec,
+                  boolean parallelSave,
+                  @Nullable FlushScheduler flushScheduler,
+                  @Nullable ConfigurationOverrides overrides,
+                  @Nullable ReadOnlySection defaults) {
+        this.flushScheduler = flushScheduler;
+        this.journal = journalCompaction > 0 ? new ConfigurationJournal(file, syncPolicy) : null;
+        this.preferredCodec = codec;
+        this.saver = saveDelay > 0 ? new DebouncedSaver(this, saveDelay, maxSaveDelay) : null;
+        this.syncPolicy = syncPolicy;
         this.lock = new ReentrantReadWriteLock(true);
+        this.writeLock = new SavingWriteLock(lock);
+        this.saveLock = new ReentrantLock();
+        this.overrideIndex = Collections.emptyMap();
+        this.overrides = overrides;
+        this.defaults = defaults;
         this.autoSave = autoSave;
+        this.parallelSave = parallelSave;
         this.file = file;
 
         DumperOptions options = new DumperOptions();
         options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
         Representer representer = new ConfigurationRepresenter(options);
         this.yaml = new Yaml(representer, options);
+        this.emitter = new ConfigurationEmitter(representer, options);
 
         load();
+
+        this.compaction = journal != null && !sharedCompaction
+                ? ConfigurationJournal.scheduleCompaction(this, Configuration::compactJournal, journalCompaction)
+                : null;
     }
 
 
@@ -132,6 +242,226 @@ public final class Configuration implements ConfigurationSection {
     }
 
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setInt(@NotNull String path, int value) {
+        section.setInt(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setLong(@NotNull String path, long value) {
+        section.setLong(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setDouble(@NotNull String path, double value) {
+        section.setDouble(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setBoolean(@NotNull String path, boolean value) {
+        section.setBoolean(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setString(@NotNull String path, @Nullable String value) {
+        section.setString(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setEnum(@NotNull String path, @Nullable Enum<?> value) {
+        section.setEnum(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setIntList(@NotNull String path, int @NotNull [] values) {
+        section.setIntList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setLongList(@NotNull String path, long @NotNull [] values) {
+        section.setLongList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setDoubleList(@NotNull String path, double @NotNull [] values) {
+        section.setDoubleList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setBooleanList(@NotNull String path, boolean @NotNull [] values) {
+        section.setBooleanList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable Object compute(@NotNull String path, @NotNull UnaryOperator<@Nullable Object> function) {
+        return section.compute(path, function);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public int computeInt(@NotNull String path, @NotNull IntUnaryOperator function) {
+        return section.computeInt(path, function);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public boolean compareAndSet(@NotNull String path, @Nullable Object expected, @Nullable Object value) {
+        return section.compareAndSet(path, expected, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void copySection(@NotNull String from, @NotNull String to) {
+        section.copySection(from, to);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void merge(@NotNull Map<?, ?> source, @NotNull MergePolicy policy) {
+        section.merge(source, policy);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void merge(@NotNull ConfigurationSection source, @NotNull MergePolicy policy) {
+        section.merge(source, policy);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void appendToList(@NotNull String path, @Nullable Object value) {
+        section.appendToList(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void insertListElement(@NotNull String path, int index, @Nullable Object value) {
+        section.insertListElement(path, index, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable Object setListElement(@NotNull String path, int index, @Nullable Object value) {
+        return section.setListElement(path, index, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable Object removeListElement(@NotNull String path, int index) {
+        return section.removeListElement(path, index);
+    }
+
+
     /**
      * {@inheritDoc}
      *
@@ -484,31 +814,214 @@ public final class Configuration implements ConfigurationSection {
     }
 
 
+    /**
+     * Applies a batch of changes to this configuration all at once.
+     * <p>
+     * The given function stages changes through a {@link ConfigurationTransaction}, which are then applied
+     * in order under a single write lock acquisition, so that concurrent readers either see all of them or none of them.<br>
+     * If auto save is enabled, the configuration is saved at most once, after all the changes have been applied.
+     * <p>
+     * Nothing is changed if the transaction is {@link ConfigurationTransaction#abort() aborted},
+     * if the function throws an exception or if any of the staged changes cannot be applied
+     * (e.g.&nbsp;setting a path below a value which is not a section), in which case the exception is
+     * propagated to the caller.
+     *
+     * @param transaction the function which stages the changes.
+     * @since 2.3.0
+     */
+    public void edit(@NotNull Consumer<@NotNull ConfigurationTransaction> transaction) {
+        ConfigurationTransaction tx = new ConfigurationTransaction();
+        transaction.accept(tx);
+
+        List<Map.Entry<String, Object>> changes = tx.getChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        writeLock().lock();
+        try {
+            Set<String> changed = new LinkedHashSet<>();
+            apply(changes, changed);
+            if (!changed.isEmpty()) {
+                changed(changed);
+            }
+        } finally {
+            writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Sets the given value at the given path without blocking the calling thread.
+     * <p>
+     * The change is enqueued without acquiring any lock and then applied by a background writer thread,
+     * which applies all the changes queued in the meantime, by any thread, under a single write lock acquisition.<br>
+     * Changes submitted through the asynchronous methods are applied in the order they were submitted,
+     * but they are not visible until the returned future is completed: the value must not be modified in the meantime.
+     * <p>
+     * Once the changes have been applied, a new {@link #snapshot() snapshot} is published for readers
+     * and the returned future is completed by the writer thread, hence dependent actions should be cheap
+     * or executed asynchronously. Auto save and journaling are then performed as in {@link #set(String, Object)}.
+     *
+     * @param path  the path to be set.
+     * @param value the value to be set, or {@code null} to unset the path.
+     * @return      a future completed once the change has been applied, or completed exceptionally
+     *              if it could not be applied (e.g.&nbsp;a parent path does not hold a section).
+     * @see         #set(String, Object)
+     * @since       2.3.0
+     */
+    public @NotNull CompletableFuture<Void> setAsync(@NotNull String path, @Nullable Object value) {
+        return mutations.submit(Collections.singletonList(new AbstractMap.SimpleImmutableEntry<>(path, value)));
+    }
+
+
+    /**
+     * Unsets the given path without blocking the calling thread, as described in {@link #setAsync(String, Object)}.
+     *
+     * @param path the path to be unset.
+     * @return     a future completed once the change has been applied.
+     * @see        #unset(String)
+     * @since      2.3.0
+     */
+    public @NotNull CompletableFuture<Void> unsetAsync(@NotNull String path) {
+        return setAsync(path, null);
+    }
+
+
+    /**
+     * Applies a batch of changes to this configuration all at once, as described in {@link #edit(Consumer)},
+     * without blocking the calling thread, as described in {@link #setAsync(String, Object)}.
+     * <p>
+     * The given function is executed by the calling thread, hence it only stages changes
+     * and cannot read values which are changed by the transaction itself.
+     *
+     * @param transaction the function which stages the changes.
+     * @return            a future completed once all the changes have been applied,
+     *                    or completed exceptionally if any of them could not be applied.
+     * @since             2.3.0
+     */
+    public @NotNull CompletableFuture<Void> editAsync(@NotNull Consumer<@NotNull ConfigurationTransaction> transaction) {
+        ConfigurationTransaction tx = new ConfigurationTransaction();
+        transaction.accept(tx);
+
+        List<Map.Entry<String, Object>> changes = tx.getChanges();
+        if (changes.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return mutations.submit(changes);
+    }
+
+
+    /**
+     * Returns an immutable snapshot of this configuration, which can be read without acquiring any lock.
+     * <p>
+     * Snapshots share any section which was not changed with the previous ones, hence taking a snapshot
+     * only costs as much as the sections changed since the last one. Snapshots are published by the
+     * writer thread of {@link #setAsync(String, Object) asynchronous changes}, so that readers
+     * do not contend with it, and they are reused until the configuration is changed again.
+     * <p>
+     * Snapshots only reflect the values stored in the configuration,
+     * without system overrides and without falling back to default values.
+     *
+     * @return a read-only snapshot of the current state of this configuration.
+     * @since  2.3.0
+     */
+    public @NotNull ConfigurationSection snapshot() {
+        foldCounters();
+        ReadOnlySection ret = published;
+        if (ret == null) {
+            readLock().lock();
+            try {
+                // no change can be made while holding the read lock
+                ret = ReadOnlySection.view(section.snapshot());
+                published = ret;
+            } finally {
+                readLock().unlock();
+            }
+        }
+        return ret;
+    }
+
+
+    /**
+     * Returns the counter stored at the given path, which can be updated
+     * by many threads at once without acquiring any lock of this configuration.
+     * <p>
+     * Counters are created on first use and then shared by all the callers of this method with the same path
+     * until their updates are folded into the configuration, after which a new counter may be returned.
+     * Counters with the same path always update the same value.
+     *
+     * @param path the path the counter is stored at.
+     * @return     the counter stored at the given path.
+     * @see        ConfigurationCounter
+     * @since      2.3.0
+     */
+    public @NotNull ConfigurationCounter counter(@NotNull String path) {
+        return counters.computeIfAbsent(path, key -> new ConfigurationCounter(this, key));
+    }
+
+
     /**
      * Saves the configuration to the source file.
+     * <p>
+     * The configuration is written to a temporary file which then atomically replaces
+     * the source file, synchronizing it with the storage device as specified by the
+     * {@link SyncPolicy} provided through {@link ConfigurationLoader#syncPolicy(SyncPolicy)}.<br>
+     * If the configuration is journaled, the journal is emptied as its changes are now part of the source file.
+     * <p>
+     * Nothing is written if the configuration was not changed since it was last loaded or saved,
+     * or if its content is identical to the one of the source file.<br>
+     * Root level entries which were not changed are copied as they were last loaded or saved,
+     * hence they keep their own formatting and comments without reading the source file back.
+     * <p>
+     * A consistent snapshot of the configuration is taken, then it is serialized and written
+     * without holding any lock, hence concurrent readers and writers are not blocked by saving.<br>
+     * Changes made in the meantime will be saved by a subsequent call.
      *
      * @since 2.0.0
      */
     public void save() {
-        writeLock().lock();
-        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
-            yaml.dump(section.getData(), writer);
+        try {
+            trySave();
         } catch (IOException e) {
             e.printStackTrace();
-        } finally {
-            writeLock().unlock();
         }
     }
 
 
+    /**
+     * Saves the configuration to the source file in background, as described in {@link #save()}.
+     * <p>
+     * Calls made while a save of this configuration is waiting to start share that save and its future,
+     * as its snapshot will include any change made so far.<br>
+     * Background saves of all configurations are performed one at a time and at most
+     * 64 of them may be waiting to start: further calls
+     * save the configuration right away on the calling thread, so that saving never falls behind indefinitely.
+     *
+     * @return a future which is completed once the configuration has been saved,
+     *         or completed exceptionally if the configuration could not be saved.
+     * @since  2.3.0
+     */
+    public @NotNull CompletableFuture<Void> saveAsync() {
+        return saves.submit();
+    }
+
+
     /**
      * Reloads the configuration from file, discarding any unsaved changes
      * and reflecting any changes that was made to the file.
+     * <p>
+     * The file is read and parsed without holding any lock, then the loaded contents replace
+     * the current ones at once, hence readers and writers are only blocked for the replacement.<br>
+     * If the file cannot be read or parsed, the current contents are kept as they are.
+     * <p>
+     * If system overrides are enabled, environment variables and system properties are scanned again.
      *
+     * @throws ConfigurationException if the file could not be read or parsed.
      * @since 2.0.0
      */
     public void reload() {
-        // load already acquires lock
+        // load only locks to replace the current contents
         load();
     }
 
@@ -545,7 +1058,7 @@ public final class Configuration implements ConfigurationSection {
      * @since 2.0.0
      */
     public @NotNull ReentrantReadWriteLock.WriteLock writeLock() {
-        return lock.writeLock();
+        return writeLock;
     }
 
 
@@ -553,24 +1066,713 @@ public final class Configuration implements ConfigurationSection {
     //                   INTERNAL
     // ============================================
 
-    void autoSave() {
+    // called with the write lock held whenever a path is changed
+    void changed(@NotNull String path) {
+        changed(Collections.singleton(path));
+    }
+
+    // called with the write lock held whenever some paths are changed at once
+    void changed(@NotNull Collection<String> paths) {
+        if (!counters.isEmpty()) {
+            // stored values replace pending updates of counters on or below the changed paths
+            for (String path : paths) {
+                if (path.isEmpty()) {
+                    discardCounters(counters);
+                    break;
+                }
+                ConfigurationCounter counter = counters.get(path);
+                if (counter != null) {
+                    discardCounter(counter);
+                }
+                discardCounters(counters.subMap(path + AbstractConfigurationSection.SEPARATOR, path + (char) (AbstractConfigurationSection.SEPARATOR + 1)));
+            }
+        }
+        commit(paths);
+    }
+
+    // called with the write lock held
+    private void commit(@NotNull Collection<String> paths) {
+        generation++;
+        published = null;
+        trackChanges(paths);
+
+        // the latest value of a path also covers any change made to its children
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (String path : paths) {
+            if (!hasAncestorIn(path, paths)) {
+                changes.put(path, section.getValue(path, false));
+                notifyChange(path);
+            }
+        }
+
+        if (deleted) {
+            return;
+        }
+        if (journal != null) {
+            journal.append(changes);
+        } else {
+            autoSave();
+        }
+    }
+
+    // called with the write lock held, records the current generation as the last change of the root level keys of paths
+    private void trackChanges(@NotNull Collection<String> paths) {
+        for (String path : paths) {
+            if (path.isEmpty()) {
+                for (String key : section.getData().keySet()) {
+                    changedRoots.put(key, generation);
+                }
+            } else {
+                changedRoots.put(childKey(path, 0), generation);
+            }
+        }
+    }
+
+    // called with the write lock held, applies either all the changes or none of them
+    // and collects the paths which were actually changed
+    void apply(@NotNull List<Map.Entry<String, Object>> changes, @NotNull Set<String> changed) {
+        if (changes.size() > 1) {
+            // a single change either fails or is applied, while a batch is tried on a copy first
+            ConfigurationSectionImpl copy = section.detachedCopy();
+            for (Map.Entry<String, Object> change : changes) {
+                copy.setValue(change.getKey(), change.getValue());
+            }
+        }
+        for (Map.Entry<String, Object> change : changes) {
+            String path = section.setValue(change.getKey(), change.getValue());
+            if (path != null) {
+                changed.add(path);
+            }
+        }
+    }
+
+    // called with the write lock held
+    void publish() {
+        if (published == null) {
+            published = ReadOnlySection.view(section.snapshot());
+        }
+    }
+
+    // called without holding any lock by a counter which was updated after being detached
+    void reattach(@NotNull ConfigurationCounter counter) {
+        ConfigurationCounter current = counters.putIfAbsent(counter.getPath(), counter);
+        if (current == null || current == counter) {
+            counter.attached();
+        } else {
+            // another counter was created for the same path in the meantime
+            counter.transferTo(current);
+        }
+    }
+
+    // called whenever a counter is updated without holding any lock
+    void counterChanged(@NotNull String path) {
+        // pending updates are visible to readers right away
+        notifyChange(path);
         if (autoSave) {
+            if (flushScheduler != null) {
+                flushScheduler.changed(this);
+            } else if (saver != null) {
+                saver.changed();
+            }
+        }
+    }
+
+    // saves as described in save(), reporting failures to the caller
+    void trySave() throws IOException {
+        foldCounters();
+
+        Map<String, Object> snapshot;
+        long generation;
+        long journalPosition;
+        readLock().lock();
+        try {
+            snapshot = section.snapshot();
+            generation = this.generation;
+            journalPosition = journal != null ? journal.position() : 0;
+        } finally {
+            readLock().unlock();
+        }
+
+        boolean saved;
+        saveLock.lock();
+        try {
+            saved = save(snapshot, generation);
+        } finally {
+            saveLock.unlock();
+        }
+
+        if (saved && journal != null) {
+            writeLock().lock();
+            try {
+                // records appended after the snapshot was taken are kept
+                journal.truncate(journalPosition);
+            } finally {
+                writeLock().unlock();
+            }
+        }
+    }
+
+    // saves changes which auto save did not persist yet, returns a future which is completed
+    // once those and any save previously requested through saveAsync are completed
+    @NotNull CompletableFuture<Void> flush() {
+        return autoSave ? saveAsync() : saves.pending();
+    }
+
+    // called when unloading, stops background work other than pending saves, which are then flushed
+    // before releasing the journal
+    @NotNull CompletableFuture<Void> close() {
+        if (compaction != null) {
+            compaction.cancel(false);
+        }
+        if (saver != null) {
+            saver.cancel();
+        }
+        if (flushScheduler != null) {
+            // its changes are saved right away by flushing it
+            flushScheduler.removed(this);
+        }
+        CompletableFuture<Void> flush = flush();
+        return journal != null ? flush.whenComplete((ignored, e) -> closeJournal()) : flush;
+    }
+
+    private void closeJournal() {
+        writeLock().lock();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            writeLock().unlock();
+        }
+    }
+
+    // called when the configuration is removed, deletes its files and discards pending saves
+    void delete() throws IOException {
+        if (compaction != null) {
+            compaction.cancel(false);
+        }
+        if (flushScheduler != null) {
+            flushScheduler.removed(this);
+        }
+        writeLock().lock();
+        try {
+            saveLock.lock();
+            try {
+                deleted = true;
+                Files.deleteIfExists(file.toPath());
+                if (journal != null) {
+                    journal.delete();
+                }
+            } finally {
+                saveLock.unlock();
+            }
+        } finally {
+            writeLock().unlock();
+        }
+    }
+
+    void compactJournal() {
+        foldCounters();
+        boolean empty;
+        readLock().lock();
+        try {
+            empty = journal.size() == 0;
+        } finally {
+            readLock().unlock();
+        }
+        if (!empty) {
             save();
         }
     }
 
+    void autoSave() {
+        if (autoSave) {
+            if (flushScheduler != null) {
+                flushScheduler.changed(this);
+            } else if (saver != null) {
+                saver.changed();
+            } else {
+                // saved once the write lock is released, so that nobody waits for the file to be written
+                saveDue = true;
+            }
+        }
+    }
+
+    @NotNull ConfigurationSectionImpl getRootSection() {
+        return section;
+    }
+
+    void addListener(@NotNull Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(@NotNull Consumer<String> listener) {
+        listeners.remove(listener);
+    }
+
+    @Nullable ReadOnlySection getDefaults(@NotNull String path) {
+        if (defaults == null || path.isEmpty()) {
+            return defaults;
+        }
+        return defaults.getValue(path) instanceof ReadOnlySection section ? section : null;
+    }
+
+    // called with the read lock held
+    @Nullable Object getOverride(@NotNull String sectionPath, @NotNull String path) {
+        if (overrideIndex.isEmpty()) {
+            return null;
+        }
+        return overrideIndex.get(sectionPath.isEmpty() ? path : sectionPath + AbstractConfigurationSection.SEPARATOR + path);
+    }
+
+    // called with the read lock held, returns the keys which can be read right below path: those stored
+    // and those only provided by default values, system overrides or pending updates of counters
+    @NotNull Set<String> getReadableKeys(@NotNull String path) {
+        Set<String> keys = new LinkedHashSet<>();
+        if ((path.isEmpty() ? section : section.getValue(path, false)) instanceof ConfigurationSectionImpl stored) {
+            keys.addAll(stored.getData().keySet());
+        }
+        ReadOnlySection fallback = getDefaults(path);
+        if (fallback != null) {
+            keys.addAll(fallback.getKeys(TraversalMode.ROOT));
+        }
+
+        String prefix = path.isEmpty() ? "" : path + AbstractConfigurationSection.SEPARATOR;
+        for (String override : overrideIndex.keySet()) {
+            if (override.startsWith(prefix)) {
+                keys.add(childKey(override, prefix.length()));
+            }
+        }
+        Map<String, ConfigurationCounter> below = path.isEmpty()
+                ? counters
+                : counters.subMap(prefix, path + (char) (AbstractConfigurationSection.SEPARATOR + 1));
+        for (ConfigurationCounter counter : below.values()) {
+            if (counter.hasPending()) {
+                keys.add(childKey(counter.getPath(), prefix.length()));
+            }
+        }
+        return keys;
+    }
+
+    // called with the read lock held, adds pending updates of counters to the stored value
+    @Nullable Object getCounted(@NotNull String sectionPath, @NotNull String path, @Nullable Object value) {
+        if (counters.isEmpty()) {
+            return value;
+        }
+        ConfigurationCounter counter = counters.get(sectionPath.isEmpty() ? path : sectionPath + AbstractConfigurationSection.SEPARATOR + path);
+        return counter != null ? counter.count(value) : value;
+    }
+
+    // the key right below the given start of a path (e.g. b for a.b.c starting from 2)
+    private static @NotNull String childKey(@NotNull String path, int start) {
+        int end = path.indexOf(AbstractConfigurationSection.SEPARATOR, start);
+        return end == -1 ? path.substring(start) : path.substring(start, end);
+    }
+
+    // called with the write lock held or by updated counters, an empty path means the whole configuration changed
+    void notifyChange(@NotNull String path) {
+        for (Consumer<String> listener : listeners) {
+            listener.accept(path);
+        }
+    }
+
+    // parses the file without holding any lock, then swaps the loaded tree in
     private void load() {
+        long ticket = loadTickets.incrementAndGet();
+        for (int attempt = 1; ; attempt++) {
+            LoadedFile loaded;
+            try {
+                loaded = read();
+            } catch (IOException | RuntimeException e) {
+                throw new ConfigurationException("could not load " + file, e);
+            }
+
+            writeLock().lock();
+            saveLock.lock();
+            try {
+                if (ticket < loadedTicket) {
+                    // a more recent load completed in the meantime
+                    return;
+                }
+                if (!loaded.isCurrent(file) && attempt < MAX_LOAD_ATTEMPTS) {
+                    // the file was replaced while being parsed
+                    continue;
+                }
+
+                loadedTicket = ticket;
+                section = loaded.section;
+                published = null;
+                discardCounters(counters);
+                savedGeneration = ++generation;
+                codec = preferredCodec != null ? preferredCodec : loaded.codec;
+                if (codec != loaded.codec) {
+                    // the file is encoded as requested on the next save
+                    savedGeneration--;
+                }
+                fileDigest = loaded.digest;
+                fileModified = loaded.modified;
+                fileSize = loaded.size;
+                aliased = loaded.aliased;
+                layout = loaded.layout;
+                layoutGeneration = generation;
+                changedRoots.clear();
+                overrideIndex = loaded.overrideIndex;
+                Set<String> replayed = new LinkedHashSet<>();
+                if (journal != null && journal.replay(section, replayed) > 0) {
+                    // fold replayed changes right away so that the journal never contains partial records
+                    generation++;
+                    trackChanges(replayed);
+                    save();
+                }
+                notifyChange("");
+                return;
+            } finally {
+                saveLock.unlock();
+                writeLock().unlock();
+            }
+        }
+    }
+
+    // reads the file into a detached tree, without holding any lock
+    private @NotNull LoadedFile read() throws IOException {
+        // the parser of the configuration may be in use, as well as the one of any concurrent load
+        Yaml parser = new Yaml();
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+
+        // sections are built straight from parse events, unless the file needs a full load
+        ConfigurationCodec detected = detectCodec();
+        ConfigurationSectionImpl loaded;
+        ConfigurationLayout layout = null;
+        Map<?, ?> data = null;
+        byte[] digest;
+        if (detected != null) {
+            // encoded files are decoded as they are parsed, while digesting their bytes
+            MessageDigest md = newDigest();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), md);
+                 InputStream decoded = detected.decode(in)) {
+                loaded = ConfigurationReader.read(this, parser, decoded);
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            digest = md.digest();
+            if (loaded == null) {
+                try (InputStream decoded = detected.decode(Files.newInputStream(file.toPath()))) {
+                    data = parser.load(decoded);
+                }
+            }
+        } else {
+            byte[] content = Files.readAllBytes(file.toPath());
+            digest = newDigest().digest(content);
+            if (preferredCodec == null) {
+                // the layout is built from the same parse events the sections are built from,
+                // while encoded files are always written from scratch
+                String text = decode(content);
+                ConfigurationLayout.Builder builder = new ConfigurationLayout.Builder(text);
+                loaded = ConfigurationReader.read(this, parser, new StringReader(text), builder);
+                layout = loaded != null ? builder.build(loaded.getData().keySet()) : null;
+            } else {
+                loaded = ConfigurationReader.read(this, parser, new ByteArrayInputStream(content));
+            }
+            if (loaded == null) {
+                data = parser.load(new ByteArrayInputStream(content));
+            }
+        }
+        if (loaded == null) {
+            loaded = ConfigurationReader.read(this, data);
+        }
+
+        return new LoadedFile(
+                loaded,
+                detected,
+                digest,
+                attributes.lastModifiedTime(),
+                attributes.size(),
+                // aliases are only supported by full loads
+                data != null && ConfigurationEmitter.hasSharedCollections(data),
+                layout,
+                overrides != null ? overrides.snapshot(parser, loaded.getData()) : Collections.emptyMap()
+        );
+    }
+
+    // decodes the text of the file as the parser would, so that parse events point into the returned text
+    private static @NotNull String decode(byte @NotNull [] content) throws IOException {
+        StringWriter out = new StringWriter(content.length);
+        try (Reader reader = new UnicodeReader(new ByteArrayInputStream(content))) {
+            reader.transferTo(out);
+        }
+        return out.toString();
+    }
+
+    // folds pending updates of counters into the configuration as a single change
+    private void foldCounters() {
+        boolean pending = false;
+        for (ConfigurationCounter counter : counters.values()) {
+            pending |= counter.hasPending();
+        }
+        if (!pending) {
+            return;
+        }
+
         writeLock().lock();
         try {
-            try (InputStream in = new FileInputStream(file)) {
-                Map<String, Object> data = yaml.load(in);
-                section = new ConfigurationSectionImpl(this, data);
-            } catch (IOException e) {
-                e.printStackTrace();
+            Set<String> changed = new LinkedHashSet<>();
+            for (ConfigurationCounter counter : counters.values()) {
+                Object value = counter.fold(section.getValue(counter.getPath(), true));
+                String path = value != null ? section.setValue(counter.getPath(), value) : null;
+                if (path != null) {
+                    changed.add(path);
+                }
+                detachIfIdle(counter);
+            }
+            if (!changed.isEmpty()) {
+                commit(changed);
             }
         } finally {
             writeLock().unlock();
         }
     }
 
+    // called with the write lock held
+    private void discardCounters(@NotNull Map<String, ConfigurationCounter> counters) {
+        for (ConfigurationCounter counter : counters.values()) {
+            discardCounter(counter);
+        }
+    }
+
+    // called with the write lock held
+    private void discardCounter(@NotNull ConfigurationCounter counter) {
+        counter.discard();
+        detachIfIdle(counter);
+    }
+
+    // called with the write lock held, counters without pending updates are only
+    // tracked again once updated, so that changes and folds never visit idle counters
+    private void detachIfIdle(@NotNull ConfigurationCounter counter) {
+        if (!counter.hasPending()) {
+            counter.detach();
+            counters.remove(counter.getPath(), counter);
+            if (counter.hasPending()) {
+                // updated while being detached
+                reattach(counter);
+            }
+        }
+    }
+
+    private static boolean hasAncestorIn(@NotNull String path, @NotNull Collection<String> paths) {
+        if (paths.size() == 1) {
+            return false;
+        }
+        for (int i = path.indexOf(AbstractConfigurationSection.SEPARATOR); i != -1; i = path.indexOf(AbstractConfigurationSection.SEPARATOR, i + 1)) {
+            if (paths.contains(path.substring(0, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // called with the save lock held, returns whether the source file reflects the given snapshot
+    private boolean save(@NotNull Map<String, Object> snapshot, long generation) throws IOException {
+        if (deleted) {
+            return false;
+        }
+        if (generation < savedGeneration) {
+            // a more recent snapshot was saved in the meantime
+            return false;
+        }
+        if (generation == savedGeneration) {
+            // the file is not rewritten even if it was changed by someone else since then
+            return true;
+        }
+
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        MessageDigest md = newDigest();
+        ConfigurationLayout written;
+        byte[] digest;
+        boolean unchanged;
+        // whether the temporary file was created and not moved yet, so that a failed save never leaves it behind
+        boolean leftover = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                leftover = true;
+                copyAttributes(target, temp);
+                // the encoder reuses its own buffer to write chunks straight to the channel
+                OutputStream out = new DigestOutputStream(Channels.newOutputStream(channel), md);
+                Writer writer = new OutputStreamWriter(codec != null ? codec.encode(unclosable(out)) : out, StandardCharsets.UTF_8);
+                if (aliased && ConfigurationEmitter.hasSharedCollections(snapshot)) {
+                    yaml.dump(snapshot, writer);
+                    written = null;
+                } else if (snapshot.isEmpty()) {
+                    emitter.emit(snapshot, writer);
+                    written = null;
+                } else {
+                    // blocks which did not change since the layout was taken are copied from its text
+                    long since = layoutGeneration;
+                    written = ConfigurationLayout.write(layout, key -> changedRoots.getOrDefault(key, since) > since, snapshot, emitter, writer, parallelSave);
+                }
+                if (codec != null) {
+                    // completes the encoding, leaving the channel open
+                    writer.close();
+                } else {
+                    writer.flush();
+                }
+
+                // changes may have been reverted in the meantime, there is no need to replace the file with the same bytes
+                digest = md.digest();
+                unchanged = MessageDigest.isEqual(digest, fileDigest) && isFileUnchanged();
+                if (!unchanged) {
+                    syncPolicy.force(channel);
+                }
+            }
+
+            if (unchanged) {
+                Files.delete(temp);
+                leftover = false;
+            } else {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                leftover = false;
+                syncPolicy.forceDirectory(target.toAbsolutePath().getParent());
+                fileDigest = digest;
+                updateFileStamp();
+            }
+        } finally {
+            if (leftover) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        // encoded files are always written from scratch, hence their layout is not kept
+        layout = codec == null ? written : null;
+        layoutGeneration = generation;
+        changedRoots.values().removeIf(changed -> changed <= generation);
+        savedGeneration = generation;
+        return true;
+    }
+
+    // the replaced file keeps its permissions and, when allowed, its owner
+    private static void copyAttributes(@NotNull Path source, @NotNull Path target) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (view == null || !Files.exists(source)) {
+            return;
+        }
+        PosixFileAttributes attributes = Files.readAttributes(source, PosixFileAttributes.class);
+        PosixFileAttributes current = view.readAttributes();
+        view.setPermissions(attributes.permissions());
+        try {
+            if (!attributes.owner().equals(current.owner())) {
+                view.setOwner(attributes.owner());
+            }
+            if (!attributes.group().equals(current.group())) {
+                view.setGroup(attributes.group());
+            }
+        } catch (FileSystemException e) {
+            // only privileged users may give files away
+        }
+    }
+
+    // called while reading the file without holding any lock, returns the codec the source file was encoded with, if any
+    private @Nullable ConfigurationCodec detectCodec() throws IOException {
+        ConfigurationCodec gzip = ConfigurationCodec.gzip();
+        int length = Math.max(gzip.getHeaderLength(), preferredCodec != null ? preferredCodec.getHeaderLength() : 0);
+        byte[] header;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            header = in.readNBytes(length);
+        }
+        if (preferredCodec != null && preferredCodec.isEncoded(header)) {
+            return preferredCodec;
+        }
+        return gzip.isEncoded(header) ? gzip : null;
+    }
+
+    private static @NotNull OutputStream unclosable(@NotNull OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte @NotNull [] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        };
+    }
+
+    // called with the save lock held
+    private void updateFileStamp() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        fileModified = attributes.lastModifiedTime();
+        fileSize = attributes.size();
+    }
+
+    // called with the save lock held, detects whether the source file was modified or deleted by someone else
+    private boolean isFileUnchanged() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            return attributes.lastModifiedTime().equals(fileModified) && attributes.size() == fileSize;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static @NotNull MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // the write lock of the configuration, which performs due auto saves once released by its holder
+    @SuppressWarnings("serial")
+    private final class SavingWriteLock extends ReentrantReadWriteLock.WriteLock {
+
+        private SavingWriteLock(@NotNull ReentrantReadWriteLock lock) {
+            super(lock);
+        }
+
+        @Override
+        public void unlock() {
+            boolean save = false;
+            if (getHoldCount() == 1) {
+                save = saveDue;
+                saveDue = false;
+            }
+            super.unlock();
+            if (save) {
+                save();
+            }
+        }
+
+    }
+
+    // a file which was read into a detached tree, along with the state it was read in
+    private record LoadedFile(@NotNull ConfigurationSectionImpl section,
+                              @Nullable ConfigurationCodec codec,
+                              byte @NotNull [] digest,
+                              @NotNull FileTime modified,
+                              long size,
+                              boolean aliased,
+                              @Nullable ConfigurationLayout layout,
+                              @NotNull Map<String, Object> overrideIndex) {
+
+        // whether the file was not modified since it was read
+        boolean isCurrent(@NotNull File file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                return attributes.lastModifiedTime().equals(modified) && attributes.size() == size;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+    }
+
 }
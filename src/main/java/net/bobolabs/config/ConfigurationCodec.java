@@ -0,0 +1,98 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+
+/**
+ * An encoding applied to the bytes of a {@link Configuration} file when it is saved
+ * and removed when it is loaded, such as compression of large data files.
+ * <p>
+ * Codecs are chosen through {@link ConfigurationLoader#codec(ConfigurationCodec)} and must be stateless,
+ * as the same instance may be used to load and save many configurations at once.<br>
+ * Since the encoding of a file is detected when loading, files encoded with a codec can still be loaded
+ * by configurations which are not set to use it, and plain files can be loaded by those which are.
+ *
+ * @since 2.3.0
+ */
+public interface ConfigurationCodec {
+
+    /**
+     * Returns a codec which compresses files with gzip.
+     *
+     * @return the gzip codec.
+     * @since  2.3.0
+     */
+    static @NotNull ConfigurationCodec gzip() {
+        return GzipCodec.INSTANCE;
+    }
+
+
+    /**
+     * Returns whether a file was encoded with this codec, given its first bytes.
+     *
+     * @param header the first bytes of the file, which may be less than
+     *               {@link #getHeaderLength()} if the file is shorter.
+     * @return       {@code true} if the file was encoded with this codec, {@code false} otherwise.
+     * @since        2.3.0
+     */
+    boolean isEncoded(byte @NotNull [] header);
+
+
+    /**
+     * Returns the number of bytes required by {@link #isEncoded(byte[])} to detect the encoding of a file.
+     *
+     * @return the number of bytes required to detect the encoding of a file.
+     * @since  2.3.0
+     */
+    int getHeaderLength();
+
+
+    /**
+     * Wraps the stream of an encoded file, decoding its contents as they are read.
+     *
+     * @param in the stream of the encoded file.
+     * @return   a stream of the decoded contents.
+     * @throws IOException if the stream could not be wrapped.
+     * @since    2.3.0
+     */
+    @NotNull InputStream decode(@NotNull InputStream in) throws IOException;
+
+
+    /**
+     * Wraps the stream of a file, encoding contents as they are written.
+     * <p>
+     * Closing the returned stream must complete the encoding and close the given stream.
+     *
+     * @param out the stream of the file.
+     * @return    a stream which encodes any content written to it.
+     * @throws IOException if the stream could not be wrapped.
+     * @since     2.3.0
+     */
+    @NotNull OutputStream encode(@NotNull OutputStream out) throws IOException;
+
+}
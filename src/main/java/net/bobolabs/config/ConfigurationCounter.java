@@ -0,0 +1,196 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A counter stored at a path of a {@link Configuration}, which can be
+ * updated by many threads at once without acquiring any lock.
+ * <p>
+ * Updates are accumulated in a {@link LongAdder} and folded into the configuration when it is saved
+ * or a {@link Configuration#snapshot() snapshot} is taken, while getters of the configuration
+ * already include the updates which were not folded yet.<br>
+ * Setting the path of a counter (e.g.&nbsp;to reset it) discards the updates which were not folded yet.
+ * <p>
+ * If auto save is performed asynchronously, updates schedule a save as any other change.
+ * Otherwise, they are only saved along with the next change or save.
+ *
+ * @see Configuration#counter(String)
+ * @since 2.3.0
+ */
+public final class ConfigurationCounter {
+
+    private final LongAdder adder = new LongAdder();
+    private final Configuration config;
+    private final String path;
+
+    // sum of the updates which were folded into the configuration,
+    // only changed while holding the write lock or once detached
+    private volatile long folded;
+
+    // whether the configuration stopped tracking this counter, as it had no pending updates
+    private volatile boolean detached;
+
+    ConfigurationCounter(@NotNull Configuration config, @NotNull String path) {
+        this.config = config;
+        this.path = path;
+    }
+
+
+    /**
+     * Increments this counter by one.
+     *
+     * @since 2.3.0
+     */
+    public void increment() {
+        add(1);
+    }
+
+
+    /**
+     * Decrements this counter by one.
+     *
+     * @since 2.3.0
+     */
+    public void decrement() {
+        add(-1);
+    }
+
+
+    /**
+     * Adds the given delta to this counter.
+     *
+     * @param delta the value to be added, which may be negative.
+     * @since 2.3.0
+     */
+    public void add(long delta) {
+        adder.add(delta);
+        if (detached) {
+            config.reattach(this);
+        }
+        config.counterChanged(path);
+    }
+
+
+    /**
+     * Returns the current value of this counter, which is {@code 0} if nothing is mapped to its path.
+     *
+     * @return the current value of this counter.
+     * @throws ConfigurationTypeException if the value mapped to its path is not a number.
+     * @since 2.3.0
+     */
+    public long get() {
+        config.readLock().lock();
+        try {
+            // pending updates are those of the counter tracked for this path, which may be another one once detached
+            Object value = config.getCounted("", path, config.getRootSection().getValue(path, true));
+            if (value != null && !(value instanceof Number)) {
+                throw new ConfigurationTypeException(path, Long.class, value);
+            }
+            return toLong(value);
+        } finally {
+            config.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Returns the path this counter is stored at.
+     *
+     * @return the path of this counter.
+     * @since 2.3.0
+     */
+    public @NotNull String getPath() {
+        return path;
+    }
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    boolean hasPending() {
+        return adder.sum() != folded;
+    }
+
+    // called with the read lock held, adds pending updates to the stored value
+    @Nullable Object count(@Nullable Object value) {
+        long pending = adder.sum() - folded;
+        if (pending == 0 || (value != null && !(value instanceof Number))) {
+            return value;
+        }
+        return box(toLong(value) + pending);
+    }
+
+    // called with the write lock held, returns the value to be stored or null if nothing is pending
+    @Nullable Object fold(@Nullable Object value) {
+        long total = adder.sum();
+        if (total == folded || (value != null && !(value instanceof Number))) {
+            return null;
+        }
+        // updates made while summing are left pending
+        Object ret = box(toLong(value) + total - folded);
+        folded = total;
+        return ret;
+    }
+
+    // called with the write lock held whenever the stored value is replaced
+    void discard() {
+        folded = adder.sum();
+    }
+
+    // called with the write lock held, before the configuration stops tracking this counter
+    void detach() {
+        detached = true;
+    }
+
+    void attached() {
+        detached = false;
+    }
+
+    // hands pending updates of this detached counter over to the one which is tracked for its path
+    void transferTo(@NotNull ConfigurationCounter counter) {
+        long pending;
+        synchronized (this) {
+            pending = adder.sum() - folded;
+            folded += pending;
+        }
+        if (pending != 0) {
+            counter.add(pending);
+        }
+    }
+
+    private static long toLong(@Nullable Object value) {
+        return value instanceof Number n ? n.longValue() : 0;
+    }
+
+    // numbers are loaded as integers whenever they fit
+    private static @NotNull Number box(long value) {
+        return value == (int) value ? Integer.valueOf((int) value) : Long.valueOf(value);
+    }
+
+}
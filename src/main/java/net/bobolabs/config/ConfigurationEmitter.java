@@ -0,0 +1,157 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.emitter.Emitter;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.*;
+import org.yaml.snakeyaml.representer.Representer;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// streams a configuration snapshot as YAML events straight to the writer, producing the very same
+// output as Yaml#dump without building the node graph of the whole tree first: only single scalars
+// are represented as nodes, which are thrown away as soon as they are emitted
+final class ConfigurationEmitter {
+
+    private final Resolver resolver = new Resolver();
+    private final Representer representer;
+    private final DumperOptions options;
+
+    // used to emit blocks in parallel, each thread owns a copy with its own representer
+    private final ThreadLocal<ConfigurationEmitter> copies;
+
+    // the default flow style must not be AUTO, which would require to inspect collections before emitting them
+    ConfigurationEmitter(@NotNull Representer representer, @NotNull DumperOptions options) {
+        this.representer = representer;
+        this.options = options;
+        this.copies = ThreadLocal.withInitial(() -> new ConfigurationEmitter(new ConfigurationRepresenter(options), options));
+
+        // same as done by the Yaml constructor
+        representer.setDefaultScalarStyle(options.getDefaultScalarStyle());
+        representer.setDefaultFlowStyle(options.getDefaultFlowStyle());
+    }
+
+    // not thread-safe, as it shares the representer
+    void emit(@NotNull Map<String, Object> data, @NotNull Writer writer) throws IOException {
+        Emitter emitter = new Emitter(writer, options);
+        emitter.emit(new StreamStartEvent(null, null));
+        emitter.emit(new DocumentStartEvent(null, null, options.isExplicitStart(), options.getVersion(), options.getTags()));
+        emitValue(emitter, data);
+        emitter.emit(new DocumentEndEvent(null, null, options.isExplicitEnd()));
+        emitter.emit(new StreamEndEvent(null, null));
+        writer.flush();
+    }
+
+    // returns an emitter which produces the same output as this one and is owned by the current thread
+    @NotNull ConfigurationEmitter local() {
+        return copies.get();
+    }
+
+    // Yaml#dump emits collections referenced more than once through anchors and aliases, which are not supported here.
+    // Lists (and maps within them) may be shared if they were loaded from aliases, hence only those are tracked,
+    // while snapshots of copied sections may share anything without being meant as aliases
+    static boolean hasSharedCollections(@NotNull Map<?, ?> data) {
+        return hasSharedCollections(data, Collections.newSetFromMap(new IdentityHashMap<>()), false);
+    }
+
+    private static boolean hasSharedCollections(@Nullable Object value, @NotNull Set<Object> seen, boolean track) {
+        if (value instanceof Map<?, ?> map) {
+            if (track && !seen.add(map)) {
+                return true;
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (hasSharedCollections(entry.getKey(), seen, track) || hasSharedCollections(entry.getValue(), seen, track)) {
+                    return true;
+                }
+            }
+        } else if (value instanceof List<?> list) {
+            if (!seen.add(list)) {
+                return true;
+            }
+            for (Object obj : list) {
+                if (hasSharedCollections(obj, seen, true)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void emitValue(@NotNull Emitter emitter, @Nullable Object value) throws IOException {
+        if (value instanceof Map<?, ?> map) {
+            emitter.emit(new MappingStartEvent(null, Tag.MAP.getValue(), true, null, null, options.getDefaultFlowStyle()));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                emitValue(emitter, entry.getKey());
+                emitValue(emitter, entry.getValue());
+            }
+            emitter.emit(new MappingEndEvent(null, null));
+        } else if (value instanceof List<?> list) {
+            emitter.emit(new SequenceStartEvent(null, Tag.SEQ.getValue(), true, null, null, options.getDefaultFlowStyle()));
+            for (Object obj : list) {
+                emitValue(emitter, obj);
+            }
+            emitter.emit(new SequenceEndEvent(null, null));
+        } else {
+            emitNode(emitter, representer.represent(value));
+        }
+    }
+
+    // mirrors what Serializer does for each node
+    private void emitNode(@NotNull Emitter emitter, @NotNull Node node) throws IOException {
+        String tag = node.getTag().getValue();
+        if (node instanceof ScalarNode scalar) {
+            Tag detectedTag = resolver.resolve(NodeId.scalar, scalar.getValue(), true);
+            Tag defaultTag = resolver.resolve(NodeId.scalar, scalar.getValue(), false);
+            ImplicitTuple implicit = new ImplicitTuple(node.getTag().equals(detectedTag), node.getTag().equals(defaultTag));
+            emitter.emit(new ScalarEvent(null, tag, implicit, scalar.getValue(), null, null, scalar.getScalarStyle()));
+        } else if (node instanceof SequenceNode sequence) {
+            boolean implicit = node.getTag().equals(resolver.resolve(NodeId.sequence, null, true));
+            emitter.emit(new SequenceStartEvent(null, tag, implicit, null, null, sequence.getFlowStyle()));
+            for (Node item : sequence.getValue()) {
+                emitNode(emitter, item);
+            }
+            emitter.emit(new SequenceEndEvent(null, null));
+        } else if (node instanceof MappingNode mapping) {
+            boolean implicit = node.getTag().equals(resolver.resolve(NodeId.mapping, null, true));
+            emitter.emit(new MappingStartEvent(null, tag, implicit, null, null, mapping.getFlowStyle()));
+            for (NodeTuple tuple : mapping.getValue()) {
+                emitNode(emitter, tuple.getKeyNode());
+                emitNode(emitter, tuple.getValueNode());
+            }
+            emitter.emit(new MappingEndEvent(null, null));
+        } else {
+            throw new IllegalStateException("unexpected node " + node);
+        }
+    }
+
+}
@@ -35,4 +35,8 @@ public class ConfigurationException extends RuntimeException {
         super(message);
     }
 
+    ConfigurationException(@NotNull String message, @NotNull Throwable cause) {
+        super(message, cause);
+    }
+
 }
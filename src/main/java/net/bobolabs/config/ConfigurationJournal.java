@@ -0,0 +1,272 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.*;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// an append-only log of changes, each record is a YAML document: [path, value] or [path] for removals,
+// changes made at once are written as a single document containing a list of records
+// so that a partially written batch is discarded as a whole
+final class ConfigurationJournal {
+
+    private final SyncPolicy syncPolicy;
+    private final Path path;
+    private final Yaml yaml;
+
+    private FileChannel channel;
+    private Writer writer;
+
+    // bytes dropped from the head of the journal since it was opened, so that positions survive truncations
+    private long dropped;
+
+    ConfigurationJournal(@NotNull File file, @NotNull SyncPolicy syncPolicy) {
+        this.path = pathOf(file);
+        this.syncPolicy = syncPolicy;
+
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.FLOW);
+        options.setExplicitStart(true);
+        options.setWidth(Integer.MAX_VALUE);
+        options.setSplitLines(false);
+        this.yaml = new Yaml(new ConfigurationRepresenter(options), options);
+    }
+
+    // must be called while holding the write lock, returns the number of replayed records and collects the changed paths
+    int replay(@NotNull ConfigurationSectionImpl section, @NotNull Set<String> changed) {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        int records = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8))) {
+            // documents are parsed one at a time, so that a corrupt one does not prevent replaying the following ones
+            StringBuilder document = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("---") && document.length() > 0) {
+                    records += replay(section, document.toString(), changed, false);
+                    document.setLength(0);
+                }
+                document.append(line).append('\n');
+            }
+            if (document.length() > 0) {
+                records += replay(section, document.toString(), changed, true);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return records;
+    }
+
+    private int replay(@NotNull ConfigurationSectionImpl section, @NotNull String document, @NotNull Set<String> changed, boolean last) {
+        Object records;
+        try {
+            records = yaml.load(document);
+        } catch (YAMLException e) {
+            // the last record may have been partially written in case of crash, others are reported and skipped,
+            // either way they are counted so that the journal gets folded without them
+            if (!last) {
+                e.printStackTrace();
+            }
+            return 1;
+        }
+        if (records instanceof List<?> list && !list.isEmpty() && list.get(0) instanceof List<?>) {
+            for (Object record : list) {
+                replay(section, record, changed);
+            }
+            return 1;
+        }
+        return replay(section, records, changed) ? 1 : 0;
+    }
+
+    private boolean replay(@NotNull ConfigurationSectionImpl section, @Nullable Object record, @NotNull Set<String> changed) {
+        if (record instanceof List<?> list && !list.isEmpty()) {
+            String key = String.valueOf(list.get(0));
+            String path = section.setValue(key, list.size() > 1 ? list.get(1) : null);
+            if (path != null) {
+                changed.add(path);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // must be called while holding the write lock, values are null for removals
+    void append(@NotNull Map<String, Object> changes) {
+        try {
+            if (writer == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            }
+            List<Object> records = new ArrayList<>(changes.size());
+            for (Map.Entry<String, Object> change : changes.entrySet()) {
+                records.add(change.getValue() != null ? Arrays.asList(change.getKey(), change.getValue()) : List.of(change.getKey()));
+            }
+            yaml.dump(records.size() == 1 ? records.get(0) : records, writer);
+            writer.flush();
+            syncPolicy.force(channel);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // must be called while holding the write lock, right after saving a snapshot of the whole configuration
+    // which was taken at the given position: records appended since then are kept
+    void truncate(long position) {
+        try {
+            long size = position - dropped;
+            long current = size();
+            if (size <= 0) {
+                // a more recent snapshot was already saved
+                return;
+            }
+            if (current <= size) {
+                dropped += current;
+                if (channel != null) {
+                    channel.truncate(0);
+                    syncPolicy.force(channel);
+                } else {
+                    Files.deleteIfExists(path);
+                }
+                return;
+            }
+
+            // the remaining records replace the journal at once, so that a crash never loses them
+            byte[] remaining = new byte[Math.toIntExact(current - size)];
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.wrap(remaining);
+                while (buffer.hasRemaining() && in.read(buffer, size + buffer.position()) >= 0) {
+                    // keep reading
+                }
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(remaining);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                syncPolicy.force(out);
+            }
+            close();
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncPolicy.forceDirectory(path.toAbsolutePath().getParent());
+            dropped += size;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // must be called while holding the read lock, returns the position which the next record will be appended at
+    long position() {
+        return dropped + size();
+    }
+
+    // must be called while holding the read lock
+    long size() {
+        try {
+            return channel != null ? channel.size() : Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // must be called while holding the write lock
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    static @NotNull Path pathOf(@NotNull File file) {
+        return file.toPath().resolveSibling(file.getName() + ".journal");
+    }
+
+    // must be called while holding the write lock, the journal is reopened by the next append
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            writer = null;
+        }
+    }
+
+    // periodically folds the journal into the configuration file until the configuration is garbage collected
+    // the returned future is cancelled once the owner is unloaded or garbage collected
+    static <T> @NotNull ScheduledFuture<?> scheduleCompaction(@NotNull T owner, @NotNull Consumer<T> compaction, long interval) {
+        return new Compaction<>(owner, compaction).schedule(interval);
+    }
+
+    private static final class Compaction<T> implements Runnable {
+
+        private final WeakReference<T> owner;
+        private final Consumer<T> compaction;
+        private ScheduledFuture<?> future;
+
+        private Compaction(@NotNull T owner, @NotNull Consumer<T> compaction) {
+            this.owner = new WeakReference<>(owner);
+            this.compaction = compaction;
+        }
+
+        private synchronized @NotNull ScheduledFuture<?> schedule(long interval) {
+            return future = Scheduler.EXECUTOR.scheduleWithFixedDelay(this, interval, interval, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public synchronized void run() {
+            T owner = this.owner.get();
+            if (owner == null) {
+                future.cancel(false);
+            } else {
+                compaction.accept(owner);
+            }
+        }
+
+    }
+
+}
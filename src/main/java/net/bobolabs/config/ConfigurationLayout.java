@@ -0,0 +1,291 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.events.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+
+// the position of each root level block within the text of a configuration file, so that saving only
+// emits blocks whose value changed and copies any other block as is, preserving its formatting and comments.
+// A block spans from its key to the end of the line its value ends on, and it is preceded by its lead:
+// the blank lines and comments between the previous block and its key, which are kept along with it.
+// The text is kept along with its blocks, hence the file is never read back when saving
+final class ConfigurationLayout {
+
+    private final Map<String, Block> blocks;
+    private final String source;
+    private final int prologueEnd;
+    private final int epilogueStart;
+
+    private ConfigurationLayout(@NotNull Map<String, Block> blocks,
+                                @NotNull String source,
+                                int prologueEnd,
+                                int epilogueStart) {
+        this.blocks = blocks;
+        this.source = source;
+        this.prologueEnd = prologueEnd;
+        this.epilogueStart = epilogueStart;
+    }
+
+    // writes the given snapshot copying the blocks of this layout which are not changed, or emitting every block
+    // if there is no layout; returns the layout of the written text. When parallel, blocks are emitted on the
+    // common pool while earlier ones are written, in the same order
+    static @NotNull ConfigurationLayout write(@Nullable ConfigurationLayout layout,
+                                              @NotNull Predicate<String> changed,
+                                              @NotNull Map<String, Object> snapshot,
+                                              @NotNull ConfigurationEmitter emitter,
+                                              @NotNull Writer writer,
+                                              boolean parallel) throws IOException {
+        Output out = new Output(writer, layout != null ? layout.source.length() : 0);
+        Map<String, Block> written = new LinkedHashMap<>();
+        if (layout != null) {
+            out.write(layout.source, 0, layout.prologueEnd);
+        }
+
+        // blocks which are being emitted, bounded so that only a few of them are buffered at once
+        Deque<Pending> window = new ArrayDeque<>();
+        int windowSize = parallel ? ForkJoinPool.getCommonPoolParallelism() * 4 : 1;
+        try {
+            for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+                Block block = layout != null ? layout.blocks.get(entry.getKey()) : null;
+                String lead = block != null ? layout.source.substring(block.leadStart, block.start) : "";
+                Pending pending;
+                if (block != null && !changed.test(entry.getKey())) {
+                    String text = layout.source.substring(block.start, block.end);
+                    if (!text.endsWith("\n")) {
+                        // the last line of the file may have no line terminator
+                        text = text.concat("\n");
+                    }
+                    pending = new Pending(entry.getKey(), lead, text, null);
+                } else if (parallel) {
+                    pending = new Pending(entry.getKey(), lead, null, ForkJoinPool.commonPool().submit(() -> emit(emitter.local(), entry)));
+                } else {
+                    pending = new Pending(entry.getKey(), lead, emit(emitter, entry), null);
+                }
+
+                window.add(pending);
+                if (window.size() >= windowSize) {
+                    window.remove().write(out, written);
+                }
+            }
+            while (!window.isEmpty()) {
+                window.remove().write(out, written);
+            }
+        } finally {
+            for (Pending pending : window) {
+                if (pending.task != null) {
+                    pending.task.cancel(false);
+                }
+            }
+        }
+
+        int epilogueStart = out.text.length();
+        if (layout != null) {
+            out.write(layout.source, layout.epilogueStart, layout.source.length() - layout.epilogueStart);
+        }
+        writer.flush();
+        return new ConfigurationLayout(written, out.text.toString(), layout != null ? layout.prologueEnd : 0, epilogueStart);
+    }
+
+    private static @NotNull String emit(@NotNull ConfigurationEmitter emitter, @NotNull Map.Entry<String, Object> entry) {
+        StringWriter out = new StringWriter();
+        try {
+            emitter.emit(Collections.singletonMap(entry.getKey(), entry.getValue()), out);
+        } catch (IOException e) {
+            // never thrown by string writers
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static boolean isFlowEnd(@NotNull String text, @NotNull Event event, @NotNull Marks marks) {
+        int end = marks.index(event.getEndMark().getIndex());
+        return end > 0 && end <= text.length() && (text.charAt(end - 1) == ']' || text.charAt(end - 1) == '}');
+    }
+
+    private static int lineEnd(@NotNull String text, int index) {
+        if (index > 0 && text.charAt(index - 1) == '\n') {
+            return index;
+        }
+        int newline = text.indexOf('\n', index);
+        return newline == -1 ? text.length() : newline + 1;
+    }
+
+    private record Block(int leadStart, int start, int end) {
+    }
+
+    // marks count code points rather than chars, hence each one is converted starting from the
+    // previous one, as marks of consecutive events are close to each other
+    private static final class Marks {
+
+        private final String text;
+        private final boolean supplementary;
+        private int codePoint;
+        private int index;
+
+        private Marks(@NotNull String text) {
+            this.text = text;
+            this.supplementary = text.length() != text.codePointCount(0, text.length());
+        }
+
+        private int index(int codePoint) {
+            if (!supplementary) {
+                return codePoint;
+            }
+            index = text.offsetByCodePoints(index, codePoint - this.codePoint);
+            this.codePoint = codePoint;
+            return index;
+        }
+
+    }
+
+    // a block to be written, whose text is either known or being emitted by a task
+    private record Pending(@NotNull String key, @NotNull String lead, @Nullable String text, @Nullable ForkJoinTask<String> task) {
+
+        void write(@NotNull Output out, @NotNull Map<String, Block> written) throws IOException {
+            String text = this.text != null ? this.text : Objects.requireNonNull(task).join();
+            int position = out.text.length();
+            out.write(lead, 0, lead.length());
+            out.write(text, 0, text.length());
+            written.put(key, new Block(position, position + lead.length(), position + lead.length() + text.length()));
+        }
+
+    }
+
+    // writes text while keeping it as the source of the next layout
+    private record Output(@NotNull Writer writer, @NotNull StringBuilder text) {
+
+        Output(@NotNull Writer writer, int capacity) {
+            this(writer, new StringBuilder(capacity));
+        }
+
+        void write(@NotNull String str, int offset, int length) throws IOException {
+            writer.write(str, offset, length);
+            text.append(str, offset, offset + length);
+        }
+
+    }
+
+    // builds the layout of a text from the events it is parsed into, as they are consumed by the reader.
+    // The layout is only built if the text is a plain block mapping without anchors and aliases, as they
+    // may cross block boundaries, and whose keys are those of the section it is read into
+    static final class Builder {
+
+        private final String text;
+        private final Marks marks;
+        private final Map<String, Block> blocks = new LinkedHashMap<>();
+        private int events;
+        private boolean failed;
+        private boolean ended;
+        private String key;
+        private int leadStart;
+        private int keyStart;
+        private int valueEnd;
+        private int depth;
+        private int prologueEnd = -1;
+
+        Builder(@NotNull String text) {
+            this.text = text;
+            this.marks = new Marks(text);
+        }
+
+        void accept(@NotNull Event event) {
+            if (failed) {
+                return;
+            }
+            switch (events++) {
+                case 0 -> failed = !event.is(Event.ID.StreamStart);
+                case 1 -> failed = !event.is(Event.ID.DocumentStart);
+                case 2 -> failed = !(event instanceof MappingStartEvent root) || root.isFlow() || root.getAnchor() != null;
+                default -> {
+                    if (ended) {
+                        failed = !event.is(Event.ID.DocumentEnd) && !event.is(Event.ID.StreamEnd);
+                    } else {
+                        failed = !acceptEntry(event);
+                    }
+                }
+            }
+        }
+
+        // returns null if the text did not turn out to be a plain block mapping with the given keys
+        @Nullable ConfigurationLayout build(@NotNull Set<String> keys) {
+            if (failed || !ended || key != null || !blocks.keySet().equals(keys)) {
+                return null;
+            }
+            return new ConfigurationLayout(blocks, text, prologueEnd == -1 ? 0 : prologueEnd, valueEnd);
+        }
+
+        private boolean acceptEntry(@NotNull Event event) {
+            if (event instanceof AliasEvent || (event instanceof NodeEvent node && node.getAnchor() != null)) {
+                return false;
+            }
+
+            if (depth == 0 && key == null) {
+                if (event.is(Event.ID.MappingEnd)) {
+                    ended = true;
+                    return true;
+                }
+                if (!(event instanceof ScalarEvent scalar) || blocks.containsKey(scalar.getValue())) {
+                    return false;
+                }
+                key = scalar.getValue();
+                keyStart = marks.index(event.getStartMark().getIndex());
+                if (prologueEnd == -1) {
+                    prologueEnd = keyStart;
+                    valueEnd = keyStart;
+                } else if (keyStart < valueEnd) {
+                    return false;
+                }
+                leadStart = valueEnd;
+                return true;
+            }
+
+            if (event instanceof CollectionStartEvent) {
+                depth++;
+            } else if (event instanceof CollectionEndEvent) {
+                depth--;
+            }
+            // the end of block collections is only detected at the following token, hence it is not reliable
+            if (event instanceof ScalarEvent || (event instanceof CollectionEndEvent && isFlowEnd(text, event, marks))) {
+                valueEnd = Math.max(valueEnd, marks.index(event.getEndMark().getIndex()));
+            }
+            if (depth == 0) {
+                valueEnd = lineEnd(text, valueEnd);
+                blocks.put(key, new Block(leadStart, keyStart, valueEnd));
+                key = null;
+            }
+            return true;
+        }
+
+    }
+
+}
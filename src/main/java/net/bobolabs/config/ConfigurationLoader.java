@@ -22,11 +22,15 @@
 package net.bobolabs.config;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.Yaml;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -40,8 +44,18 @@ public final class ConfigurationLoader {
     private final File file;
 
     private boolean autoSave = false;
+    private long saveDelay = 0;
+    private long maxSaveDelay = 0;
+    private SyncPolicy syncPolicy = SyncPolicy.NONE;
+    private long journalCompaction = 0;
+    private boolean sharedCompaction = false;
+    private ConfigurationCodec codec = null;
+    private boolean parallelSave = false;
+    private FlushScheduler flushScheduler;
     private boolean saveDefaultResource = false;
     private String defaultResource = null;
+    private boolean defaultFallback = false;
+    private ConfigurationOverrides overrides = null;
 
     private ConfigurationLoader(@NotNull File file) {
         this.file = file;
@@ -92,7 +106,8 @@ public final class ConfigurationLoader {
      * <p>
      * Note that enabling auto save could become very inefficient in case of
      * frequent write operations due to the blocking nature of I/O; that is
-     * why auto save is disable by default and requires manual enable.
+     * why auto save is disable by default and requires manual enable.<br>
+     * See {@link #saveDelay(long, long, TimeUnit)} to perform auto save asynchronously.
      *
      * @param autoSave {@code true} to enable auto save,
      *                 {@code false} to disable it (default behaviour).
@@ -105,6 +120,157 @@ public final class ConfigurationLoader {
     }
 
 
+    /**
+     * Sets whether auto save should be performed asynchronously.
+     * <p>
+     * When a delay is set, changes only mark the {@link Configuration} as dirty and are
+     * coalesced into a single background save, which is performed once no change happened
+     * for the given {@code delay}, or once {@code maxDelay} elapsed since the first unsaved change.<br>
+     * Pending changes are not saved if the JVM exits in the meantime,
+     * hence {@link Configuration#save()} should be called on shutdown.
+     * <p>
+     * Only effective if {@link #autoSave(boolean) auto save} is enabled.
+     *
+     * @param delay    the time to wait for further changes before saving,
+     *                 or {@code 0} to save synchronously (default behaviour).
+     * @param maxDelay the maximum time a change may wait before being saved.
+     * @param unit     the time unit of {@code delay} and {@code maxDelay}.
+     * @return         the current configuration loader itself.
+     * @throws IllegalArgumentException if {@code delay} is negative or greater than {@code maxDelay}.
+     * @since          2.3.0
+     */
+    public @NotNull ConfigurationLoader saveDelay(long delay, long maxDelay, @NotNull TimeUnit unit) {
+        if (delay < 0 || (delay > 0 && maxDelay < delay)) {
+            throw new IllegalArgumentException("invalid save delay " + delay + " (max " + maxDelay + ")");
+        }
+        this.saveDelay = unit.toNanos(delay);
+        this.maxSaveDelay = unit.toNanos(maxDelay);
+        return this;
+    }
+
+
+    /**
+     * Sets whether auto save should be performed asynchronously, as described in
+     * {@link #saveDelay(long, long, TimeUnit)}, waiting at most ten times {@code delay}.
+     *
+     * @param delay the time to wait for further changes before saving,
+     *              or {@code 0} to save synchronously (default behaviour).
+     * @param unit  the time unit of {@code delay}.
+     * @return      the current configuration loader itself.
+     * @throws IllegalArgumentException if {@code delay} is negative.
+     * @since       2.3.0
+     */
+    public @NotNull ConfigurationLoader saveDelay(long delay, @NotNull TimeUnit unit) {
+        return saveDelay(delay, delay * 10, unit);
+    }
+
+
+    /**
+     * Sets how the {@link Configuration} file should be synchronized with the storage device when saving.
+     * <p>
+     * Configurations are always saved through a temporary file which atomically replaces the original one,
+     * the policy only affects durability in case of power loss or OS crash, at the expense of save latency.
+     *
+     * @param syncPolicy the sync policy to be used when saving ({@link SyncPolicy#NONE} by default).
+     * @return           the current configuration loader itself.
+     * @since            2.3.0
+     */
+    public @NotNull ConfigurationLoader syncPolicy(@NotNull SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+        return this;
+    }
+
+
+    /**
+     * Sets whether changes made to the {@link Configuration} should be persisted through a journal,
+     * which is periodically compacted into the file every minute.
+     *
+     * @param journal {@code true} to enable the journal,
+     *                {@code false} to disable it (default behaviour).
+     * @return        the current configuration loader itself.
+     * @see           #journal(long, TimeUnit)
+     * @since         2.3.0
+     */
+    public @NotNull ConfigurationLoader journal(boolean journal) {
+        if (journal) {
+            return journal(1, TimeUnit.MINUTES);
+        }
+        this.journalCompaction = 0;
+        return this;
+    }
+
+
+    /**
+     * Enables journaled persistence, which is well suited for frequently changing
+     * data files which would be very expensive to auto save.
+     * <p>
+     * Any {@link ConfigurationSection#set(String, Object) set} or {@link ConfigurationSection#unset(String) unset}
+     * operation appends a compact record to a {@code .journal} file next to the configuration file,
+     * hence each change costs I/O proportional to its own size rather than to the size of the whole file.<br>
+     * When loading, the journal is replayed over the configuration file.
+     * In background, the journal is periodically folded back into the configuration file,
+     * which is then written from scratch as in {@link Configuration#save()}.
+     * <p>
+     * Every change is persisted regardless of {@link #autoSave(boolean) auto save},
+     * and the {@link #syncPolicy(SyncPolicy) sync policy} also applies to each record.
+     *
+     * @param compactionInterval how often the journal should be folded into the configuration file.
+     * @param unit               the time unit of {@code compactionInterval}.
+     * @return                   the current configuration loader itself.
+     * @throws IllegalArgumentException if {@code compactionInterval} is not positive.
+     * @since                    2.3.0
+     */
+    public @NotNull ConfigurationLoader journal(long compactionInterval, @NotNull TimeUnit unit) {
+        if (compactionInterval <= 0) {
+            throw new IllegalArgumentException("invalid compaction interval " + compactionInterval);
+        }
+        this.journalCompaction = unit.toNanos(compactionInterval);
+        return this;
+    }
+
+
+    /**
+     * Sets the encoding of the {@link Configuration} file on disk, such as gzip compression
+     * through {@link ConfigurationCodec#gzip()}, which is well suited for large data files.
+     * <p>
+     * Files are streamed through the codec when loading and saving, without ever holding their whole text in memory.
+     * The encoding of the file is detected when loading, hence existing plain files are loaded as they are
+     * and encoded on the next save.<br>
+     * When no codec is set, files are saved with the same encoding they were loaded with.
+     * <p>
+     * Note that encoded files are always written from scratch when saving, and the
+     * {@link #journal(boolean) journal}, if enabled, is never encoded.
+     *
+     * @param codec the codec to be used when saving, or {@code null}
+     *              to keep the encoding of the file (default behaviour).
+     * @return      the current configuration loader itself.
+     * @since       2.3.0
+     */
+    public @NotNull ConfigurationLoader codec(@Nullable ConfigurationCodec codec) {
+        this.codec = codec;
+        return this;
+    }
+
+
+    /**
+     * Sets whether root level entries of the {@link Configuration} should be serialized in parallel when saving,
+     * which speeds up saving large data files made of many root level sections on multicore machines.
+     * <p>
+     * Entries are serialized on the common fork-join pool and written to file in order as soon as they are ready,
+     * hence the file is exactly the same as the one written by a sequential save.
+     * Only a few entries are held in memory at once.
+     *
+     * @param parallelSave {@code true} to enable parallel save,
+     *                     {@code false} to disable it (default behaviour).
+     * @return             the current configuration loader itself.
+     * @since              2.3.0
+     */
+    public @NotNull ConfigurationLoader parallelSave(boolean parallelSave) {
+        this.parallelSave = parallelSave;
+        return this;
+    }
+
+
     /**
      * Sets the path to the resource file which contains the default configuration.
      * <p>
@@ -118,8 +284,79 @@ public final class ConfigurationLoader {
      * @since                 2.0.0
      */
     public @NotNull ConfigurationLoader setDefaultResource(@NotNull String defaultResource) {
-        this.saveDefaultResource = true;
-        this.defaultResource = defaultResource;
+        return setDefaultResource(defaultResource, true);
+    }
+
+
+    /**
+     * Sets whether the default resource should be kept in memory as an immutable fallback
+     * for any value that is missing from the file (e.g.&nbsp;keys introduced by newer versions
+     * of the default resource, which are therefore missing from existing files).
+     * <p>
+     * The default resource is parsed only once, when calling {@link #load()}.
+     * Any getter then falls back to it within the same lookup, hence there is no need
+     * to duplicate default values at call sites.<br>
+     * Fallback values are never written to file. Sections which only exist in the default
+     * resource are read-only: use {@link ConfigurationSection#getOrCreateSection(String)}
+     * to obtain a writable section which still falls back to the default resource.<br>
+     * Note that {@link ConfigurationSection#getKeys(TraversalMode) getKeys} only reflects the file contents.
+     * <p>
+     * If no default resource was set through {@link #setDefaultResource(String)},
+     * a resource with the same name of the file is used.
+     *
+     * @param defaultFallback {@code true} to enable default fallback,
+     *                        {@code false} to disable it (default behaviour).
+     * @return                the current configuration loader itself.
+     * @since                 2.3.0
+     */
+    public @NotNull ConfigurationLoader defaultFallback(boolean defaultFallback) {
+        this.defaultFallback = defaultFallback;
+        return this;
+    }
+
+
+    /**
+     * Sets whether values found in the file may be overridden by environment
+     * variables and system properties (e.g.&nbsp;in containerised environments).
+     * <p>
+     * When enabled, environment variables starting with {@code BOBOCONFIG_} and system properties
+     * starting with {@code config.} are mapped to configuration paths, system properties taking
+     * precedence over environment variables:
+     * <ul>
+     *  <li>{@code -Dconfig.server.max_players=20} overrides {@code server.max_players};</li>
+     *  <li>{@code BOBOCONFIG_SERVER_MAX__PLAYERS=20} overrides {@code server.max_players}
+     *  (single underscores separate path segments, double underscores stand for one underscore).
+     *  Segments match keys found in the file regardless of case, and are lower-cased otherwise.</li>
+     * </ul>
+     * Overrides are parsed as YAML values and snapshotted once when the {@link Configuration}
+     * is loaded or {@link Configuration#reload() reloaded}, hence they cost nothing on reads.
+     * They are never written to file and take precedence over values set at runtime.
+     *
+     * @param systemOverrides {@code true} to enable system overrides,
+     *                        {@code false} to disable them (default behaviour).
+     * @return                the current configuration loader itself.
+     * @since                 2.3.0
+     */
+    public @NotNull ConfigurationLoader systemOverrides(boolean systemOverrides) {
+        if (systemOverrides) {
+            return systemOverrides(ConfigurationOverrides.ENVIRONMENT_PREFIX, ConfigurationOverrides.PROPERTY_PREFIX);
+        }
+        this.overrides = null;
+        return this;
+    }
+
+
+    /**
+     * Enables system overrides as described in {@link #systemOverrides(boolean)},
+     * using custom prefixes for environment variables and system properties.
+     *
+     * @param environmentPrefix the prefix environment variables must start with (e.g.&nbsp;{@code MYPLUGIN_}).
+     * @param propertyPrefix    the prefix system properties must start with (e.g.&nbsp;{@code myplugin.}).
+     * @return                  the current configuration loader itself.
+     * @since                   2.3.0
+     */
+    public @NotNull ConfigurationLoader systemOverrides(@NotNull String environmentPrefix, @NotNull String propertyPrefix) {
+        this.overrides = new ConfigurationOverrides(environmentPrefix, propertyPrefix);
         return this;
     }
 
@@ -130,9 +367,16 @@ public final class ConfigurationLoader {
      * @return the loaded configuration.
      * @throws IllegalArgumentException if any problem emerge when creating files
      *                                  and/or directories as specified.
+     * @throws ConfigurationException   if the file could not be read or parsed.
      * @since  2.0.0
      */
     public @NotNull Configuration load() {
+        // establish default resource
+        String resource = defaultResource != null ? defaultResource : file.getName();
+        if (!resource.startsWith("/")) {
+            resource = "/".concat(resource);
+        }
+
         if (!file.exists()) {
             // fail if file doesn't exist and save default was not requested
             if (!saveDefaultResource) {
@@ -147,16 +391,8 @@ public final class ConfigurationLoader {
                 }
             }
 
-            // establish default resource
-            if (defaultResource == null) {
-                defaultResource = file.getName();
-            }
-
             // copy file from resources
-            if (!defaultResource.startsWith("/")) {
-                defaultResource = "/".concat(defaultResource);
-            }
-            try (InputStream in = getClass().getResourceAsStream(defaultResource)) {
+            try (InputStream in = getClass().getResourceAsStream(resource)) {
                 if (in != null) {
                     Files.copy(in, file.toPath());
                 }
@@ -165,7 +401,80 @@ public final class ConfigurationLoader {
             }
         }
 
-        return new Configuration(file, autoSave);
+        ReadOnlySection defaults = defaultFallback ? loadDefaults(resource) : null;
+        return new Configuration(file, autoSave, saveDelay, maxSaveDelay, syncPolicy, journalCompaction, sharedCompaction, codec, parallelSave, flushScheduler, overrides, defaults);
+    }
+
+
+    /**
+     * Loads a {@link ShardedConfiguration} from the directory specified within this configuration loader,
+     * creating it if needed.
+     * <p>
+     * Each shard is then loaded on demand with the options provided to this configuration loader,
+     * except for {@link #systemOverrides(boolean) system overrides} which are not supported.<br>
+     * Shards which do not exist yet start empty, unless a default resource is to be saved.
+     *
+     * @return the loaded sharded configuration.
+     * @throws IllegalArgumentException if the directory could not be created.
+     * @since  2.3.0
+     */
+    public @NotNull ShardedConfiguration loadSharded() {
+        if (!file.isDirectory() && !file.mkdirs()) {
+            throw new IllegalArgumentException("could not create directory " + file);
+        }
+        // journals of all shards are compacted by a single task rather than by one task per shard
+        return new ShardedConfiguration(file, journalCompaction, shardFile -> {
+            ConfigurationLoader loader = new ConfigurationLoader(shardFile);
+            loader.autoSave = autoSave;
+            loader.saveDelay = saveDelay;
+            loader.maxSaveDelay = maxSaveDelay;
+            loader.syncPolicy = syncPolicy;
+            loader.journalCompaction = journalCompaction;
+            loader.sharedCompaction = true;
+            loader.codec = codec;
+            loader.parallelSave = parallelSave;
+            loader.flushScheduler = flushScheduler;
+            loader.saveDefaultResource = saveDefaultResource;
+            loader.defaultResource = defaultResource;
+            loader.defaultFallback = defaultFallback;
+            if (!saveDefaultResource && !shardFile.exists()) {
+                try {
+                    Files.createFile(shardFile.toPath());
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("could not create file " + shardFile, e);
+                }
+            }
+            return loader.load();
+        });
+    }
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    @NotNull ConfigurationLoader setDefaultResource(@NotNull String defaultResource, boolean save) {
+        this.saveDefaultResource = save;
+        this.defaultResource = defaultResource;
+        return this;
+    }
+
+    // auto save is then performed by the given scheduler, regardless of the save delay
+    @NotNull ConfigurationLoader flushScheduler(@Nullable FlushScheduler flushScheduler) {
+        this.flushScheduler = flushScheduler;
+        return this;
+    }
+
+    private @Nullable ReadOnlySection loadDefaults(@NotNull String resource) {
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            if (in != null) {
+                Map<?, ?> data = new Yaml().load(in);
+                return ReadOnlySection.of(data);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
     }
 
 }
@@ -27,9 +27,15 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 
@@ -46,12 +52,21 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 // A Glowy piace :D
 public final class ConfigurationManager<T extends Enum<T> & ConfigurationDescription> {
 
+    private static final int FLUSH_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private static final long UNLOAD_TIMEOUT_SECONDS = 10;
+
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     private final Map<@NotNull T, @Nullable Configuration> configurations;
+    // interval of group commits in nanoseconds, or 0 if configurations are auto saved on their own
+    private final long flushInterval;
     private final File directory;
     private final Class<T> clazz;
 
+    // created on first use, as many managers never flush or group commit
+    private volatile FlushScheduler flushScheduler;
+
 
     /**
      * Construct a new configuration managers which loads configurations from the
@@ -64,6 +79,39 @@ public final class ConfigurationManager<T extends Enum<T> & ConfigurationDescrip
      */
     public ConfigurationManager(@NotNull File directory, @NotNull Class<T> description) {
         this.configurations = new EnumMap<>(description);
+        this.flushInterval = 0;
+        this.directory = directory;
+        this.clazz = description;
+    }
+
+
+    /**
+     * Constructs a new configuration manager which loads configurations from the
+     * specified {@code directory} using the given {@code description} enum,
+     * and which auto saves them all together every {@code flushInterval}.
+     * <p>
+     * Changes made to {@link Config#autoSave() auto saved} configurations only mark them as dirty;
+     * then, dirty configurations are periodically saved in background by a bounded pool of threads,
+     * hence I/O scales with the flush interval rather than with the number of changes.<br>
+     * This replaces the {@link Config#saveDelay() save delay} of configurations loaded by this manager.
+     * <p>
+     * Pending changes are not saved if the JVM exits in the meantime,
+     * hence {@link #flushAll()} and {@link #awaitFlush()} should be called on shutdown.
+     *
+     * @param directory     the directory inside which configuration files are to be loaded.
+     * @param description   the configuration description enum which provides instruction
+     *                      on how configuration files are to be loaded.
+     * @param flushInterval how often dirty configurations should be saved.
+     * @param unit          the time unit of {@code flushInterval}.
+     * @throws IllegalArgumentException if {@code flushInterval} is not positive.
+     * @since 2.3.0
+     */
+    public ConfigurationManager(@NotNull File directory, @NotNull Class<T> description, long flushInterval, @NotNull TimeUnit unit) {
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("invalid flush interval " + flushInterval);
+        }
+        this.configurations = new EnumMap<>(description);
+        this.flushInterval = unit.toNanos(flushInterval);
         this.directory = directory;
         this.clazz = description;
     }
@@ -82,10 +130,19 @@ public final class ConfigurationManager<T extends Enum<T> & ConfigurationDescrip
             Config config = makeConfig(configuration);
             ConfigurationLoader loader = ConfigurationLoader
                     .fromFile(directory, config.path())
-                    .autoSave(config.autoSave());
+                    .autoSave(config.autoSave())
+                    .saveDelay(config.saveDelay(), config.maxSaveDelay(), TimeUnit.MILLISECONDS)
+                    .syncPolicy(config.syncPolicy())
+                    .journal(config.journal())
+                    .codec(config.compressed() ? ConfigurationCodec.gzip() : null)
+                    .defaultFallback(config.defaultFallback());
+
+            if (flushInterval > 0 && config.autoSave()) {
+                loader.flushScheduler(flushScheduler());
+            }
 
-            if (config.saveDefaultResource()) {
-                loader.setDefaultResource(config.defaultResource());
+            if (config.saveDefaultResource() || config.defaultFallback()) {
+                loader.setDefaultResource(config.defaultResource(), config.saveDefaultResource());
             }
 
             Configuration loaded = loader.load();
@@ -134,33 +191,120 @@ public final class ConfigurationManager<T extends Enum<T> & ConfigurationDescrip
 
 
     /**
-     * Unloads the specified {@link Configuration}, if already loaded.
+     * Saves all the loaded {@link Configuration}s in background, then returns a future
+     * which is completed once all of them have been saved.
+     * <p>
+     * Configurations which were not changed since they were last loaded or saved are not written at all.
+     *
+     * @return a future which is completed once all the loaded configurations have been saved.
+     * @see Configuration#save()
+     * @since 2.3.0
+     */
+    public @NotNull CompletableFuture<Void> flushAll() {
+        List<Configuration> loaded = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Configuration config : configurations.values()) {
+                if (config != null) {
+                    loaded.add(config);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return flushScheduler().flush(loaded);
+    }
+
+
+    /**
+     * Waits until any background save which is in progress, either periodic or started through
+     * {@link #flushAll()}, is completed.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     * @since 2.3.0
+     */
+    public void awaitFlush() throws InterruptedException {
+        FlushScheduler flushScheduler = this.flushScheduler;
+        if (flushScheduler != null) {
+            flushScheduler.await();
+        }
+    }
+
+
+    /**
+     * Unloads the specified {@link Configuration}, if already loaded, waiting up to ten seconds for its pending saves.
      *
      * @param configuration the configuration to be unloaded.
+     * @see #unload(Enum, long, TimeUnit)
      * @since 2.0.0
      */
     public void unload(@NotNull T configuration) {
+        unload(configuration, UNLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+
+    /**
+     * Unloads the specified {@link Configuration}, if already loaded, then waits for its pending saves.
+     * <p>
+     * If auto save is enabled, any change which was not saved yet (e.g.&nbsp;because of a
+     * {@link ConfigurationLoader#saveDelay(long, TimeUnit) save delay}) is saved right away.
+     * Saves requested through {@link Configuration#saveAsync()} are awaited as well,
+     * while periodic {@link ConfigurationLoader#journal(long, TimeUnit) journal} compaction is stopped.
+     *
+     * @param configuration the configuration to be unloaded.
+     * @param timeout       the maximum time to wait for pending saves.
+     * @param unit          the time unit of {@code timeout}.
+     * @return              {@code true} if pending saves completed successfully within the timeout,
+     *                      {@code false} if any of them failed or did not complete in time.
+     * @since 2.3.0
+     */
+    public boolean unload(@NotNull T configuration, long timeout, @NotNull TimeUnit unit) {
+        Configuration config;
         lock.writeLock().lock();
         try {
-            configurations.remove(configuration);
+            config = configurations.remove(configuration);
         } finally {
             lock.writeLock().unlock();
         }
+        return config == null || close(List.of(config), timeout, unit);
     }
 
 
     /**
-     * Unloads any previously loaded {@link Configuration}.
+     * Unloads any previously loaded {@link Configuration}, waiting up to ten seconds for their pending saves.
      *
+     * @see #unloadAll(long, TimeUnit)
      * @since 2.0.0
      */
     public void unloadAll() {
+        unloadAll(UNLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+
+    /**
+     * Unloads any previously loaded {@link Configuration}, then waits for their pending saves
+     * as described in {@link #unload(Enum, long, TimeUnit)}.
+     *
+     * @param timeout the maximum time to wait for pending saves of all configurations.
+     * @param unit    the time unit of {@code timeout}.
+     * @return        {@code true} if pending saves completed successfully within the timeout,
+     *                {@code false} if any of them failed or did not complete in time.
+     * @since 2.3.0
+     */
+    public boolean unloadAll(long timeout, @NotNull TimeUnit unit) {
+        List<Configuration> unloaded = new ArrayList<>();
         lock.writeLock().lock();
         try {
+            for (Configuration config : configurations.values()) {
+                if (config != null) {
+                    unloaded.add(config);
+                }
+            }
             configurations.clear();
         } finally {
             lock.writeLock().unlock();
         }
+        return close(unloaded, timeout, unit);
     }
 
 
@@ -264,14 +408,82 @@ public final class ConfigurationManager<T extends Enum<T> & ConfigurationDescrip
                     return annotation != null ? annotation.autoSave() : ConfigDefaults.AUTO_SAVE;
                 }
 
+                @Override
+                public long saveDelay() {
+                    return annotation != null ? annotation.saveDelay() : ConfigDefaults.SAVE_DELAY;
+                }
+
+                @Override
+                public long maxSaveDelay() {
+                    long maxSaveDelay = annotation != null ? annotation.maxSaveDelay() : ConfigDefaults.MAX_SAVE_DELAY;
+                    return maxSaveDelay > 0 ? maxSaveDelay : saveDelay() * 10;
+                }
+
+                @Override
+                public @NotNull SyncPolicy syncPolicy() {
+                    return annotation != null ? annotation.syncPolicy() : ConfigDefaults.SYNC_POLICY;
+                }
+
+                @Override
+                public boolean journal() {
+                    return annotation != null ? annotation.journal() : ConfigDefaults.JOURNAL;
+                }
+
+                @Override
+                public boolean compressed() {
+                    return annotation != null ? annotation.compressed() : ConfigDefaults.COMPRESSED;
+                }
+
                 @Override
                 public boolean saveDefaultResource() {
                     return annotation != null ? annotation.saveDefaultResource() : ConfigDefaults.SAVE_DEFAULT_RESOURCE;
                 }
+
+                @Override
+                public boolean defaultFallback() {
+                    return annotation != null ? annotation.defaultFallback() : ConfigDefaults.DEFAULT_FALLBACK;
+                }
             };
         } catch (NoSuchFieldException e) {
             throw new NullPointerException(); // TODO
         }
     }
 
-}
\ No newline at end of file
+    private @NotNull FlushScheduler flushScheduler() {
+        FlushScheduler ret = flushScheduler;
+        if (ret == null) {
+            synchronized (this) {
+                ret = flushScheduler;
+                if (ret == null) {
+                    ret = new FlushScheduler(FLUSH_THREADS);
+                    if (flushInterval > 0) {
+                        ret.schedule(flushInterval);
+                    }
+                    flushScheduler = ret;
+                }
+            }
+        }
+        return ret;
+    }
+
+    // closes unloaded configurations and waits for their pending saves, without holding the lock
+    private static boolean close(@NotNull List<Configuration> configs, long timeout, @NotNull TimeUnit unit) {
+        CompletableFuture<?>[] flushes = new CompletableFuture<?>[configs.size()];
+        for (int i = 0; i < flushes.length; i++) {
+            flushes[i] = configs.get(i).close();
+        }
+        try {
+            CompletableFuture.allOf(flushes).get(timeout, unit);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            return false;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+final class ConfigurationOverrides {
+
+    static final String ENVIRONMENT_PREFIX = "BOBOCONFIG_";
+
+    static final String PROPERTY_PREFIX = "config.";
+
+    private final String environmentPrefix;
+    private final String propertyPrefix;
+
+    ConfigurationOverrides(@NotNull String environmentPrefix, @NotNull String propertyPrefix) {
+        this.environmentPrefix = environmentPrefix;
+        this.propertyPrefix = propertyPrefix;
+    }
+
+    // scans environment variables and system properties once, system properties win over environment variables
+    @NotNull Map<String, Object> snapshot(@NotNull Yaml yaml, @NotNull Map<?, ?> tree) {
+        Map<String, Object> overrides = new HashMap<>();
+
+        for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
+            String name = entry.getKey();
+            if (name.length() > environmentPrefix.length() && name.startsWith(environmentPrefix)) {
+                String path = matchCase(toPath(name.substring(environmentPrefix.length())), tree);
+                overrides.put(path, parse(yaml, entry.getValue()));
+            }
+        }
+
+        Properties properties = System.getProperties();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.length() > propertyPrefix.length() && name.startsWith(propertyPrefix)) {
+                String path = name.substring(propertyPrefix.length());
+                overrides.put(path, parse(yaml, properties.getProperty(name)));
+            }
+        }
+
+        return overrides.isEmpty() ? Collections.emptyMap() : overrides;
+    }
+
+    // SERVER_MAX__PLAYERS -> server.max_players
+    static @NotNull String toPath(@NotNull String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_') {
+                builder.append(Character.toLowerCase(c));
+            } else if (i + 1 < name.length() && name.charAt(i + 1) == '_') {
+                builder.append('_');
+                i++;
+            } else {
+                builder.append(AbstractConfigurationSection.SEPARATOR);
+            }
+        }
+        return builder.toString();
+    }
+
+    // environment variables are usually upper-case, hence each lower-cased segment
+    // takes the case of a key found in the loaded tree, preferring an exact match.
+    // The tree is either made of plain maps or the data of the loaded sections
+    static @NotNull String matchCase(@NotNull String path, @NotNull Map<?, ?> tree) {
+        StringBuilder builder = new StringBuilder(path.length());
+        Map<?, ?> section = tree;
+        int start = 0;
+        while (true) {
+            int end = path.indexOf(AbstractConfigurationSection.SEPARATOR, start);
+            String segment = end == -1 ? path.substring(start) : path.substring(start, end);
+            Object value = null;
+            if (section != null) {
+                value = section.get(segment);
+                if (value == null) {
+                    for (Map.Entry<?, ?> entry : section.entrySet()) {
+                        if (entry.getKey() instanceof String key && key.equalsIgnoreCase(segment)) {
+                            segment = key;
+                            value = entry.getValue();
+                            break;
+                        }
+                    }
+                }
+            }
+            builder.append(segment);
+            if (end == -1) {
+                return builder.toString();
+            }
+            builder.append(AbstractConfigurationSection.SEPARATOR);
+            if (value instanceof ConfigurationSectionImpl child) {
+                section = child.getData();
+            } else {
+                section = value instanceof Map<?, ?> map ? map : null;
+            }
+            start = end + 1;
+        }
+    }
+
+    private static @NotNull Object parse(@NotNull Yaml yaml, @NotNull String value) {
+        try {
+            // values are parsed as YAML scalars or lists (e.g. 42, true, [a, b])
+            Object parsed = yaml.load(value);
+            if (parsed != null && !(parsed instanceof Map<?, ?>)) {
+                return parsed;
+            }
+        } catch (YAMLException ignored) {
+            // simply fallback to the raw value
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,265 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.events.*;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.reader.UnicodeReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.*;
+
+// builds the section tree of a configuration straight from parse events, without building the nodes and maps of the
+// whole document first. Scalars are constructed one by one as Yaml#load would do, and mappings which are not sections
+// are built as it would do as well, including the order of duplicate keys, which are moved to their last occurrence.
+// Keys of sections which are not strings are turned into strings as the section constructor does, unless two different
+// keys would turn into the same string. Anchors, aliases, merge keys, explicit tags and non-scalar keys are not
+// supported and require a full load instead
+final class ConfigurationReader {
+
+    // marks values which are not supported
+    private static final Object UNSUPPORTED = new Object();
+
+    private final Resolver resolver = new Resolver();
+    private final ScalarConstructor constructor = new ScalarConstructor();
+    private final Iterator<Event> events;
+    private final ConfigurationLayout.Builder layout;
+    private final int depthLimit;
+
+    // nesting depth of the current collection, limited as done by Yaml#load
+    private int depth;
+
+    private ConfigurationReader(@NotNull Iterator<Event> events, @Nullable ConfigurationLayout.Builder layout, int depthLimit) {
+        this.events = events;
+        this.layout = layout;
+        this.depthLimit = depthLimit;
+    }
+
+    // returns a detached root section, or null if the document must be loaded by Yaml#load
+    static @Nullable ConfigurationSectionImpl read(@NotNull Configuration root, @NotNull Yaml yaml, @NotNull InputStream in) {
+        return read(root, yaml, new UnicodeReader(in), null);
+    }
+
+    // same as above, also feeding the parsed events to the given layout builder, if any
+    static @Nullable ConfigurationSectionImpl read(@NotNull Configuration root,
+                                                   @NotNull Yaml yaml,
+                                                   @NotNull Reader in,
+                                                   @Nullable ConfigurationLayout.Builder layout) {
+        ConfigurationReader reader = new ConfigurationReader(yaml.parse(in).iterator(), layout, new LoaderOptions().getNestingDepthLimit());
+        ConfigurationSectionImpl section = new ConfigurationSectionImpl(root, null, "", null);
+        if (!reader.next().is(Event.ID.StreamStart)) {
+            return null;
+        }
+
+        Event event = reader.next();
+        if (event.is(Event.ID.StreamEnd)) {
+            // empty file
+            return section;
+        }
+        if (!event.is(Event.ID.DocumentStart)) {
+            return null;
+        }
+
+        event = reader.next();
+        if (event instanceof MappingStartEvent start && reader.isPlain(start, Tag.MAP)) {
+            if (!reader.readSection(section)) {
+                return null;
+            }
+        } else if (!(event instanceof ScalarEvent scalar) || reader.readScalar(scalar) != null) {
+            // anything but an empty document is not a configuration
+            return null;
+        }
+
+        if (!reader.next().is(Event.ID.DocumentEnd) || !reader.next().is(Event.ID.StreamEnd)) {
+            return null;
+        }
+        return section;
+    }
+
+    // returns a detached root section holding the given tree loaded by Yaml#load
+    static @NotNull ConfigurationSectionImpl read(@NotNull Configuration root, @Nullable Map<?, ?> data) {
+        ConfigurationSectionImpl section = new ConfigurationSectionImpl(root, null, "", null);
+        if (data != null) {
+            fill(section, data);
+        }
+        return section;
+    }
+
+    // same as done by the section constructor, without locking as the section is not published yet
+    private static void fill(@NotNull ConfigurationSectionImpl section, @NotNull Map<?, ?> data) {
+        for (Map.Entry<?, ?> entry : data.entrySet()) {
+            String key = Objects.toString(entry.getKey());
+            if (entry.getValue() instanceof Map<?, ?> map) {
+                ConfigurationSectionImpl child = section.createChild(key);
+                fill(child, map);
+                section.getData().put(key, child);
+            } else {
+                section.getData().put(key, entry.getValue());
+            }
+        }
+    }
+
+    private @NotNull Event next() {
+        if (!events.hasNext()) {
+            throw new IllegalStateException("unexpected end of events");
+        }
+        Event event = events.next();
+        if (layout != null) {
+            layout.accept(event);
+        }
+        return event;
+    }
+
+    // reads the entries of a mapping into the given section, returns false if any of them is not supported
+    private boolean readSection(@NotNull ConfigurationSectionImpl section) {
+        if (++depth > depthLimit) {
+            return false;
+        }
+        Map<String, Object> data = section.getData();
+        // keys which were not strings, by the string they were turned into
+        Map<String, Object> converted = null;
+        while (true) {
+            Event event = next();
+            if (event.is(Event.ID.MappingEnd)) {
+                depth--;
+                return true;
+            }
+
+            Object raw = event instanceof ScalarEvent scalar ? readScalar(scalar) : UNSUPPORTED;
+            if (raw == UNSUPPORTED) {
+                return false;
+            }
+            String key = Objects.toString(raw);
+            if (data.containsKey(key)) {
+                // different keys turned into the same string are not duplicates for Yaml#load, hence they keep their order
+                Object previous = converted != null && converted.containsKey(key) ? converted.get(key) : key;
+                if (!Objects.equals(previous, raw)) {
+                    return false;
+                }
+            }
+            if (!(raw instanceof String)) {
+                if (converted == null) {
+                    converted = new HashMap<>();
+                }
+                converted.put(key, raw);
+            }
+
+            Object value;
+            event = next();
+            if (event instanceof MappingStartEvent start && isPlain(start, Tag.MAP)) {
+                ConfigurationSectionImpl child = section.createChild(key);
+                if (!readSection(child)) {
+                    return false;
+                }
+                value = child;
+            } else {
+                value = readValue(event);
+                if (value == UNSUPPORTED) {
+                    return false;
+                }
+            }
+            data.remove(key);
+            data.put(key, value);
+        }
+    }
+
+    private @Nullable Object readValue(@NotNull Event event) {
+        if (event instanceof ScalarEvent scalar) {
+            return readScalar(scalar);
+        }
+
+        if (event instanceof CollectionStartEvent && ++depth > depthLimit) {
+            return UNSUPPORTED;
+        }
+
+        if (event instanceof SequenceStartEvent start && isPlain(start, Tag.SEQ)) {
+            List<Object> list = new ArrayList<>();
+            for (event = next(); !event.is(Event.ID.SequenceEnd); event = next()) {
+                Object value = readValue(event);
+                if (value == UNSUPPORTED) {
+                    return UNSUPPORTED;
+                }
+                list.add(value);
+            }
+            depth--;
+            return list;
+        }
+
+        if (event instanceof MappingStartEvent start && isPlain(start, Tag.MAP)) {
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (event = next(); !event.is(Event.ID.MappingEnd); event = next()) {
+                Object key = event instanceof ScalarEvent scalar ? readScalar(scalar) : UNSUPPORTED;
+                Object value = key != UNSUPPORTED ? readValue(next()) : UNSUPPORTED;
+                if (value == UNSUPPORTED) {
+                    return UNSUPPORTED;
+                }
+                map.remove(key);
+                map.put(key, value);
+            }
+            depth--;
+            return map;
+        }
+
+        return UNSUPPORTED;
+    }
+
+    // mirrors what Composer does for scalars
+    private @Nullable Object readScalar(@NotNull ScalarEvent event) {
+        String tag = event.getTag();
+        if (event.getAnchor() != null || (tag != null && !tag.equals("!"))) {
+            return UNSUPPORTED;
+        }
+        Tag resolved = resolver.resolve(NodeId.scalar, event.getValue(), event.getImplicit().canOmitTagInPlainScalar());
+        if (resolved.equals(Tag.MERGE)) {
+            return UNSUPPORTED;
+        }
+        return constructor.construct(new ScalarNode(resolved, true, event.getValue(), event.getStartMark(), event.getEndMark(), event.getScalarStyle()));
+    }
+
+    // mirrors what Composer does for collections
+    private boolean isPlain(@NotNull CollectionStartEvent event, @NotNull Tag tag) {
+        return event.getAnchor() == null && (event.getTag() == null || event.getTag().equals("!") || tag.getValue().equals(event.getTag()));
+    }
+
+    // the same constructor used by Yaml#load, which is only asked to construct single scalars
+    private static final class ScalarConstructor extends Constructor {
+
+        private ScalarConstructor() {
+            super(new LoaderOptions());
+        }
+
+        private @Nullable Object construct(@NotNull ScalarNode node) {
+            return getConstructor(node).construct(node);
+        }
+
+    }
+
+}
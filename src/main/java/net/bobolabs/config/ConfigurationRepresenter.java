@@ -31,11 +31,11 @@ final class ConfigurationRepresenter extends Representer {
         super(options);
         this.representers.put(ConfigurationSectionImpl.class, data -> {
             ConfigurationSectionImpl section = (ConfigurationSectionImpl) data;
-            section.getRoot().writeLock().lock();
+            section.getRoot().readLock().lock();
             try {
-                return represent(section.getData());
+                return represent(section.snapshot());
             } finally {
-                section.getRoot().writeLock().unlock();
+                section.getRoot().readLock().unlock();
             }
         });
     }
@@ -26,7 +26,10 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
 
 
 /**
@@ -122,6 +125,285 @@ public interface ConfigurationSection {
     void unset(@NotNull String path);
 
 
+    /**
+     * Maps the specified {@code path} to the given {@code integer} value, as described in {@link #set(String, Object)},
+     * without going through the conversions required by arbitrary values.
+     *
+     * @param path  the path to be mapped to the given value.
+     * @param value the integer value to be mapped to the specified path.
+     * @since 2.3.0
+     */
+    void setInt(@NotNull String path, int value);
+
+
+    /**
+     * Maps the specified {@code path} to the given {@code long} value, as described in {@link #set(String, Object)},
+     * without going through the conversions required by arbitrary values.
+     *
+     * @param path  the path to be mapped to the given value.
+     * @param value the long value to be mapped to the specified path.
+     * @since 2.3.0
+     */
+    void setLong(@NotNull String path, long value);
+
+
+    /**
+     * Maps the specified {@code path} to the given {@code double} value, as described in {@link #set(String, Object)},
+     * without going through the conversions required by arbitrary values.
+     *
+     * @param path  the path to be mapped to the given value.
+     * @param value the double value to be mapped to the specified path.
+     * @since 2.3.0
+     */
+    void setDouble(@NotNull String path, double value);
+
+
+    /**
+     * Maps the specified {@code path} to the given {@code boolean} value, as described in {@link #set(String, Object)},
+     * without going through the conversions required by arbitrary values.
+     *
+     * @param path  the path to be mapped to the given value.
+     * @param value the boolean value to be mapped to the specified path.
+     * @since 2.3.0
+     */
+    void setBoolean(@NotNull String path, boolean value);
+
+
+    /**
+     * Maps the specified {@code path} to the given string, as described in {@link #set(String, Object)},
+     * without going through the conversions required by arbitrary values.
+     *
+     * @param path  the path to be mapped to the given value.
+     * @param value the string to be mapped to the specified path, or {@code null} to unset it.
+     * @since 2.3.0
+     */
+    void setString(@NotNull String path, @Nullable String value);
+
+
+    /**
+     * Maps the specified {@code path} to the name of the given enum constant, as described in {@link #set(String, Object)},
+     * without going through the conversions required by arbitrary values.
+     *
+     * @param path  the path to be mapped to the given value.
+     * @param value the enum constant to be mapped to the specified path, or {@code null} to unset it.
+     * @since 2.3.0
+     */
+    void setEnum(@NotNull String path, @Nullable Enum<?> value);
+
+
+    /**
+     * Maps the specified {@code path} to a list which contains the given integer values,
+     * as described in {@link #set(String, Object)}, without going through the conversions required by arbitrary lists.
+     *
+     * @param path   the path to be mapped to the given values.
+     * @param values the integer values to be mapped to the specified path.
+     * @since 2.3.0
+     */
+    void setIntList(@NotNull String path, int @NotNull [] values);
+
+
+    /**
+     * Maps the specified {@code path} to a list which contains the given long values,
+     * as described in {@link #set(String, Object)}, without going through the conversions required by arbitrary lists.
+     *
+     * @param path   the path to be mapped to the given values.
+     * @param values the long values to be mapped to the specified path.
+     * @since 2.3.0
+     */
+    void setLongList(@NotNull String path, long @NotNull [] values);
+
+
+    /**
+     * Maps the specified {@code path} to a list which contains the given double values,
+     * as described in {@link #set(String, Object)}, without going through the conversions required by arbitrary lists.
+     *
+     * @param path   the path to be mapped to the given values.
+     * @param values the double values to be mapped to the specified path.
+     * @since 2.3.0
+     */
+    void setDoubleList(@NotNull String path, double @NotNull [] values);
+
+
+    /**
+     * Maps the specified {@code path} to a list which contains the given boolean values,
+     * as described in {@link #set(String, Object)}, without going through the conversions required by arbitrary lists.
+     *
+     * @param path   the path to be mapped to the given values.
+     * @param values the boolean values to be mapped to the specified path.
+     * @since 2.3.0
+     */
+    void setBooleanList(@NotNull String path, boolean @NotNull [] values);
+
+
+    /**
+     * Atomically replaces the value mapped to the specified {@code path} with the
+     * result of the given function, which is applied to the current value.
+     * <p>
+     * The function is applied without holding any lock, hence it must be free of side effects:
+     * if the value was changed by someone else in the meantime, it is applied again to the new value.<br>
+     * Returning {@code null} will have the same effect as calling {@link #unset(String) unset} on the same {@code path}.
+     * <p>
+     * The current value is the one returned by {@link #get(String, Object) get}, as described in
+     * {@link #compareAndSet(String, Object, Object)}.
+     *
+     * @param path     the path whose value is to be computed.
+     * @param function the function which computes the new value from the current one,
+     *                 which is {@code null} if no mapping is present.
+     * @return the new value mapped to the specified {@code path}.
+     * @see #compareAndSet(String, Object, Object)
+     * @since 2.3.0
+     */
+    @Nullable
+    Object compute(@NotNull String path, @NotNull UnaryOperator<@Nullable Object> function);
+
+
+    /**
+     * Atomically replaces the integer value mapped to the specified {@code path} with the
+     * result of the given function, as described in {@link #compute(String, UnaryOperator)}.
+     * <p>
+     * If no mapping is present, the function is applied to {@code 0}.
+     *
+     * @param path     the path whose integer value is to be computed.
+     * @param function the function which computes the new integer value from the current one.
+     * @return the new integer value mapped to the specified {@code path}.
+     * @throws ConfigurationTypeException if the current value is not an integer value.
+     * @since 2.3.0
+     */
+    int computeInt(@NotNull String path, @NotNull IntUnaryOperator function);
+
+
+    /**
+     * Atomically maps the specified {@code path} to the given {@code value}
+     * if and only if the current value is equal to the {@code expected} one.
+     * <p>
+     * Passing {@code null} as {@code expected} value requires that no mapping is present,
+     * while passing {@code null} as {@code value} will have the same effect as calling
+     * {@link #unset(String) unset} on the same {@code path}.
+     * <p>
+     * The current value is the one returned by {@link #get(String, Object) get}, hence it includes
+     * system overrides, pending updates of counters and default values, in this order of precedence,
+     * while the given value is stored as if it was {@link #set(String, Object) set}.
+     * Therefore, pending updates of counters are discarded and default values are replaced,
+     * whereas system overrides still take precedence over the stored value.
+     *
+     * @param path     the path to be mapped to the given value.
+     * @param expected the value which is expected to be mapped to the specified path.
+     * @param value    the value to be mapped to the specified path.
+     * @return {@code true} if the value was set, {@code false} if the current value was not the expected one.
+     * @since 2.3.0
+     */
+    boolean compareAndSet(@NotNull String path, @Nullable Object expected, @Nullable Object value);
+
+
+    /**
+     * Maps the specified {@code to} path to a copy of the configuration section mapped
+     * to the specified {@code from} path, overriding any pre-existing mapping.
+     * <p>
+     * Whenever possible, the copy shares its contents with the original section, which are only copied
+     * one level at a time as they are accessed or changed. Sharing requires an immutable view of the
+     * section, which is built by the first copy and then only rebuilt for the parts changed in the meantime:
+     * hence copying a section again costs constant time unless it was changed,
+     * and changing either section never affects the other one.
+     *
+     * @param from the path of the configuration section to be copied.
+     * @param to   the path to be mapped to the copy.
+     * @throws NullPointerException       if no mapping is present for the {@code from} path.
+     * @throws ConfigurationTypeException if the value mapped to the {@code from} path is not a configuration section.
+     * @since 2.3.0
+     */
+    void copySection(@NotNull String from, @NotNull String to);
+
+
+    /**
+     * Deeply merges the given tree into this configuration section, as specified by the given policy.
+     * <p>
+     * The whole tree is merged at once, as in a single {@link Configuration#edit(java.util.function.Consumer) edit},
+     * hence concurrent readers either see all the merged values or none of them and auto save is performed once.<br>
+     * Keys of the given tree are interpreted as paths relative to this section, while {@code null} values are ignored.
+     *
+     * @param source the tree to be merged into this section.
+     * @param policy how values which are present on both sides are combined.
+     * @see MergePolicy
+     * @since 2.3.0
+     */
+    void merge(@NotNull Map<?, ?> source, @NotNull MergePolicy policy);
+
+
+    /**
+     * Deeply merges the given configuration section into this one,
+     * as described in {@link #merge(Map, MergePolicy)}.
+     *
+     * @param source the configuration section to be merged into this section.
+     * @param policy how values which are present on both sides are combined.
+     * @see MergePolicy
+     * @since 2.3.0
+     */
+    void merge(@NotNull ConfigurationSection source, @NotNull MergePolicy policy);
+
+
+    /**
+     * Appends the given value to the list mapped to the specified {@code path},
+     * which is created if no mapping is present.
+     * <p>
+     * Unlike replacing the whole list through {@link #set(String, Object) set},
+     * the list is changed in place whenever possible and only the specified path is marked as changed.
+     *
+     * @param path  the path of the list to be changed.
+     * @param value the value to be appended.
+     * @throws ConfigurationTypeException if the value mapped to the specified path is not a list.
+     * @since 2.3.0
+     */
+    void appendToList(@NotNull String path, @Nullable Object value);
+
+
+    /**
+     * Inserts the given value at the given position of the list mapped to the specified {@code path},
+     * as described in {@link #appendToList(String, Object)}.
+     *
+     * @param path  the path of the list to be changed.
+     * @param index the position at which the value is to be inserted.
+     * @param value the value to be inserted.
+     * @throws NullPointerException       if no mapping is present for the specified path.
+     * @throws ConfigurationTypeException if the value mapped to the specified path is not a list.
+     * @throws IndexOutOfBoundsException  if the index is out of range.
+     * @since 2.3.0
+     */
+    void insertListElement(@NotNull String path, int index, @Nullable Object value);
+
+
+    /**
+     * Replaces the value at the given position of the list mapped to the specified {@code path},
+     * as described in {@link #appendToList(String, Object)}.
+     *
+     * @param path  the path of the list to be changed.
+     * @param index the position of the value to be replaced.
+     * @param value the value to be stored at the given position.
+     * @return the value previously stored at the given position.
+     * @throws NullPointerException       if no mapping is present for the specified path.
+     * @throws ConfigurationTypeException if the value mapped to the specified path is not a list.
+     * @throws IndexOutOfBoundsException  if the index is out of range.
+     * @since 2.3.0
+     */
+    @Nullable
+    Object setListElement(@NotNull String path, int index, @Nullable Object value);
+
+
+    /**
+     * Removes the value at the given position of the list mapped to the specified {@code path},
+     * as described in {@link #appendToList(String, Object)}.
+     *
+     * @param path  the path of the list to be changed.
+     * @param index the position of the value to be removed.
+     * @return the removed value.
+     * @throws NullPointerException       if no mapping is present for the specified path.
+     * @throws ConfigurationTypeException if the value mapped to the specified path is not a list.
+     * @throws IndexOutOfBoundsException  if the index is out of range.
+     * @since 2.3.0
+     */
+    @Nullable
+    Object removeListElement(@NotNull String path, int index);
+
+
     /**
      * Creates a new configuration section mapped to the specified {@code path} and returns it.
      *
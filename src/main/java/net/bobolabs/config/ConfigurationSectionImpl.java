@@ -27,36 +27,30 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.Function;
-import java.util.function.UnaryOperator;
 
-final class ConfigurationSectionImpl implements ConfigurationSection {
-
-    private static final Map<Class<?>, Function<Object, ?>> mappers = new HashMap<>();
-
-    static {
-        // numeric types
-        mappers.put(Byte.class, o -> (o instanceof Number n) ? n.byteValue() : null);
-        mappers.put(Short.class, o -> (o instanceof Number n) ? n.shortValue() : null);
-        mappers.put(Integer.class, o -> (o instanceof Number n) ? n.intValue() : null);
-        mappers.put(Long.class, o -> (o instanceof Number n) ? n.longValue() : null);
-        mappers.put(Float.class, o -> (o instanceof Number n) ? n.floatValue() : null);
-        mappers.put(Double.class, o -> (o instanceof Number n) ? n.doubleValue() : null);
-
-        // special types
-        mappers.put(Boolean.class, o -> (o instanceof Boolean b) ? b : null);
-        mappers.put(String.class, o -> (o != null) ? Objects.toString(o) : null);
-    }
-
-    private static final UnaryOperator<String> NO_MAPPING_FOUND = path -> "no mapping found for path `" + path + "` in configuration section";
-
-    private static final char SEPARATOR = '.';
+final class ConfigurationSectionImpl extends AbstractConfigurationSection {
 
+    private final ReadOnlySection defaults;
     private final Map<String, Object> data;
+    private final ConfigurationSectionImpl parent;
     private final Configuration root;
+    private final String path;
+
+    // immutable copy of data shared by snapshots until this section or any of its children is changed
+    private volatile Map<String, Object> snapshot;
+
+    // immutable tree which data is expanded from on first access, so that copies share unchanged sections
+    private volatile Map<String, Object> source;
 
-    ConfigurationSectionImpl(@NotNull Configuration root, @Nullable Map<?, ?> ext) {
+    ConfigurationSectionImpl(@NotNull Configuration root,
+                             @Nullable ConfigurationSectionImpl parent,
+                             @NotNull String path,
+                             @Nullable Map<?, ?> ext) {
+        this.defaults = root.getDefaults(path);
         this.data = new LinkedHashMap<>();
+        this.parent = parent;
         this.root = root;
+        this.path = path;
 
         if (ext != null) {
             root.writeLock().lock();
@@ -64,8 +58,14 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
                 for (Map.Entry<?, ?> entry : ext.entrySet()) {
                     String key = Objects.toString(entry.getKey());
                     if (entry.getValue() instanceof Map<?, ?> sectionData) {
-                        data.put(key, new ConfigurationSectionImpl(root, sectionData));
+                        data.put(key, new ConfigurationSectionImpl(root, this, childPath(key), sectionData));
+                    } else if (entry.getValue() instanceof ConfigurationSectionImpl section) {
+                        data.put(key, new ConfigurationSectionImpl(root, this, childPath(key), section.data()));
                     } else {
+                        if (entry.getValue() instanceof OwnedList list) {
+                            // the list is now stored by another section as well
+                            list.shared = true;
+                        }
                         data.put(key, entry.getValue());
                     }
                 }
@@ -78,7 +78,7 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
     @Override
     public boolean contains(@NotNull String path) {
         // get already acquires lock
-        return get(path, null, false) != null;
+        return lookup(path, false) != null;
     }
 
     @Override
@@ -99,7 +99,7 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
         // same list that would be modified by write operations)
         root.readLock().lock();
         try {
-            return (get(path, null, true) instanceof List<?> list) ? new ArrayList<>(list) : Collections.emptyList();
+            return (lookup(path, true) instanceof List<?> list) ? new ArrayList<>(list) : Collections.emptyList();
         } finally {
             root.readLock().unlock();
         }
@@ -107,83 +107,144 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
 
     @Override
     public void set(@NotNull String path, @Nullable Object value) {
-        root.writeLock().lock();
-        try {
-            if (value instanceof Map<?, ?> map) {
-                value = new ConfigurationSectionImpl(root, map);
-            }
+        set(path, value, false);
+    }
 
-            ConfigurationSection section = getSectionFor(path);
-            if (section == this) {
-                if (value == null) {
-                    data.remove(path);
-                } else {
-                    // handle enums and enum lists
-                    if (value instanceof Enum<?> e) {
-                        value = e.name();
-                    } else if (value instanceof List<?> list) {
-                        List<Object> tmp = new ArrayList<>();
-                        for (Object obj : list) {
-                            Object res = obj;
-                            if (obj instanceof Enum<?> e) {
-                                res = e.name();
-                            }
-                            tmp.add(res);
-                        }
-                        value = tmp;
-                    }
+    @Override
+    public void setInt(@NotNull String path, int value) {
+        set(path, value, true);
+    }
 
-                    if (value instanceof Byte b) {
-                        value = b.intValue();
-                    } else if (value instanceof List<?> list) {
-                        List<Object> tmp = new ArrayList<>();
-                        for (Object obj : list) {
-                            Object res = obj;
-                            if (obj instanceof Byte b) {
-                                res = b.intValue();
-                            }
-                            tmp.add(res);
-                        }
-                        value = tmp;
-                    }
+    @Override
+    public void setLong(@NotNull String path, long value) {
+        set(path, value, true);
+    }
 
-                    data.put(path, value);
-                }
-            } else {
-                int index = path.indexOf(SEPARATOR);
-                String rootPath = path.substring(0, index);
-                String subPath = path.substring(index + 1);
+    @Override
+    public void setDouble(@NotNull String path, double value) {
+        set(path, value, true);
+    }
 
-                if (section == null) {
-                    section = new ConfigurationSectionImpl(root, null);
-                    data.put(rootPath, section);
-                }
+    @Override
+    public void setBoolean(@NotNull String path, boolean value) {
+        set(path, value, true);
+    }
+
+    @Override
+    public void setString(@NotNull String path, @Nullable String value) {
+        set(path, value, true);
+    }
+
+    @Override
+    public void setEnum(@NotNull String path, @Nullable Enum<?> value) {
+        set(path, value != null ? value.name() : null, true);
+    }
+
+    @Override
+    public void setIntList(@NotNull String path, int @NotNull [] values) {
+        set(path, addAll(new OwnedList(values.length), values), true);
+    }
+
+    @Override
+    public void setLongList(@NotNull String path, long @NotNull [] values) {
+        set(path, addAll(new OwnedList(values.length), values), true);
+    }
+
+    @Override
+    public void setDoubleList(@NotNull String path, double @NotNull [] values) {
+        set(path, addAll(new OwnedList(values.length), values), true);
+    }
+
+    @Override
+    public void setBooleanList(@NotNull String path, boolean @NotNull [] values) {
+        set(path, addAll(new OwnedList(values.length), values), true);
+    }
+
+    @Override
+    public void unset(@NotNull String path) {
+        // set already acquires lock
+        set(path, null);
+    }
 
-                section.set(subPath, value);
+    @Override
+    public boolean compareAndSet(@NotNull String path, @Nullable Object expected, @Nullable Object value) {
+        // fail fast without contending with writers
+        if (!Objects.equals(lookup(path, false), expected)) {
+            return false;
+        }
+        root.writeLock().lock();
+        try {
+            if (isReplaced()) {
+                return root.getRootSection().compareAndSet(path, expected, value);
+            }
+            if (!Objects.equals(lookup(path, false), expected)) {
+                return false;
             }
+            String changed = setValue(path, value);
+            if (changed != null) {
+                root.changed(changed);
+            }
+            return true;
+        } finally {
+            root.writeLock().unlock();
+        }
+    }
 
-            root.autoSave();
+    @Override
+    public void copySection(@NotNull String from, @NotNull String to) {
+        root.writeLock().lock();
+        try {
+            if (isReplaced()) {
+                root.getRootSection().copySection(from, to);
+                return;
+            }
+            Object section = getValue(from, false);
+            if (section == null) {
+                String message = NO_MAPPING_FOUND.apply(from);
+                throw new NullPointerException(message);
+            } else if (!(section instanceof ConfigurationSectionImpl)) {
+                throw new ConfigurationTypeException(from, ConfigurationSection.class, section);
+            }
+            // sections are copied from their snapshot
+            String changed = setValue(to, section);
+            if (changed != null) {
+                root.changed(changed);
+            }
         } finally {
             root.writeLock().unlock();
         }
     }
 
     @Override
-    public void unset(@NotNull String path) {
-        // set already acquires lock
-        set(path, null);
+    public void merge(@NotNull Map<?, ?> source, @NotNull MergePolicy policy) {
+        root.writeLock().lock();
+        try {
+            if (isReplaced()) {
+                root.getRootSection().merge(source, policy);
+                return;
+            }
+            Set<String> changed = new LinkedHashSet<>();
+            merge(source, policy, changed);
+            if (!changed.isEmpty()) {
+                root.changed(changed);
+            }
+        } finally {
+            root.writeLock().unlock();
+        }
     }
 
     @Override
     public @NotNull ConfigurationSection createSection(@NotNull String path) {
         root.writeLock().lock();
         try {
-            if (contains(path)) {
+            if (isReplaced()) {
+                return root.getRootSection().createSection(path);
+            }
+            if (getValue(path, false) != null) {
                 throw new IllegalArgumentException("path `" + path + "` already exists in this configuration section");
             }
-            ConfigurationSection section = new ConfigurationSectionImpl(root, null);
-            set(path, section);
-            return section;
+            set(path, Collections.emptyMap());
+            return getSection(path);
         } finally {
             root.writeLock().unlock();
         }
@@ -193,7 +254,10 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
     public @NotNull ConfigurationSection getOrCreateSection(@NotNull String path) {
         root.writeLock().lock();
         try {
-            ConfigurationSection section = getSection(path, path, null, false);
+            if (isReplaced()) {
+                return root.getRootSection().getOrCreateSection(path);
+            }
+            ConfigurationSection section = getSection(path, null, false, false);
             if (section == null) {
                 section = createSection(path);
             }
@@ -205,13 +269,13 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
 
     @Override
     public @NotNull ConfigurationSection getSection(@NotNull String path) {
-        // getOptionalSection already acquires lock
-        return getSection(path, path, null, true);
+        // getSection already acquires lock
+        return getSection(path, null, true, true);
     }
 
     @Override
     public @Nullable ConfigurationSection getSection(@NotNull String path, @Nullable ConfigurationSection def) {
-        return getSection(path, path, def, false);
+        return getSection(path, def, false, true);
     }
 
     @Override
@@ -219,7 +283,7 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
         root.readLock().lock();
         try {
             Set<String> accumulator = new LinkedHashSet<>();
-            for (Map.Entry<String, Object> entry : data.entrySet()) {
+            for (Map.Entry<String, Object> entry : data().entrySet()) {
                 if (traversalMode != TraversalMode.LEAVES || !(entry.getValue() instanceof ConfigurationSection)) {
                     accumulator.add(entry.getKey());
                 }
@@ -235,200 +299,283 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
         }
     }
 
-    @Override
-    public byte getByte(@NotNull String path) {
-        return getType(path, Byte.class);
-    }
-
-    @Override
-    public byte getByte(@NotNull String path, byte def) {
-        return getType(path, Byte.class, def);
-    }
-
-    @Override
-    public @NotNull List<@NotNull Byte> getByteList(@NotNull String path) {
-        return getTypeList(path, Byte.class);
-    }
 
-    @Override
-    public short getShort(@NotNull String path) {
-        return getType(path, Short.class);
-    }
-
-    @Override
-    public short getShort(@NotNull String path, short def) {
-        return getType(path, Short.class, def);
-    }
+    // ============================================
+    //                   INTERNAL
+    // ============================================
 
-    @Override
-    public @NotNull List<@NotNull Short> getShortList(@NotNull String path) {
-        return getTypeList(path, Short.class);
+    @NotNull Map<String, Object> getData() {
+        return data();
     }
 
-    @Override
-    public int getInt(@NotNull String path) {
-        return getType(path, Integer.class);
+    @NotNull Configuration getRoot() {
+        return root;
     }
 
-    @Override
-    public int getInt(@NotNull String path, int def) {
-        return getType(path, Integer.class, def);
+    @NotNull String getPath() {
+        return path;
     }
 
-    @Override
-    public @NotNull List<@NotNull Integer> getIntList(@NotNull String path) {
-        return getTypeList(path, Integer.class);
+    // must be called while holding the write lock, returns a detached copy of this section
+    // which is only expanded where it is changed, so that changes can be tried on it first
+    @NotNull ConfigurationSectionImpl detachedCopy() {
+        return copyOf(root, null, path, snapshot());
     }
 
-    @Override
-    public long getLong(@NotNull String path) {
-        return getType(path, Long.class);
+    // creates a section to be stored at the given key while loading, before this section is published
+    @NotNull ConfigurationSectionImpl createChild(@NotNull String key) {
+        return new ConfigurationSectionImpl(root, this, childPath(key), null);
     }
 
-    @Override
-    public long getLong(@NotNull String path, long def) {
-        return getType(path, Long.class, def);
+    // must be called while holding the write lock, returns the absolute path that was changed
+    // or null if the stored value was already equal to the given one
+    @Nullable String setValue(@NotNull String path, @Nullable Object value) {
+        return setValue(path, value, false);
     }
 
-    @Override
-    public @NotNull List<@NotNull Long> getLongList(@NotNull String path) {
-        return getTypeList(path, Long.class);
-    }
+    // canonical values are stored as they are, hence they must be immutable or owned lists
+    private @Nullable String setValue(@NotNull String path, @Nullable Object value, boolean canonical) {
+        ConfigurationSectionImpl section = getSectionFor(path);
+        if (section == this) {
+            if (value == null) {
+                if (data().remove(path) == null) {
+                    return null;
+                }
+                invalidate();
+            } else if (canonical) {
+                if (value.equals(data().put(path, value))) {
+                    return null;
+                }
+                invalidate();
+            } else {
+                if (value instanceof Map<?, ?> map) {
+                    value = new ConfigurationSectionImpl(root, this, childPath(path), map);
+                } else if (value instanceof ConfigurationSectionImpl other) {
+                    other.root.readLock().lock();
+                    try {
+                        // the copy shares unchanged sections with the other section
+                        value = copyOf(root, this, childPath(path), other.snapshot());
+                    } finally {
+                        other.root.readLock().unlock();
+                    }
+                }
 
-    @Override
-    public float getFloat(@NotNull String path) {
-        return getType(path, Float.class);
-    }
+                // handle enums, bytes and lists of them
+                if (value instanceof List<?> list) {
+                    OwnedList tmp = new OwnedList(list.size());
+                    for (Object obj : list) {
+                        tmp.add(normalize(obj));
+                    }
+                    value = tmp;
+                } else {
+                    value = normalize(value);
+                }
 
-    @Override
-    public float getFloat(@NotNull String path, float def) {
-        return getType(path, Float.class, def);
-    }
+                if (value.equals(data().put(path, value))) {
+                    return null;
+                }
+                invalidate();
+            }
+            return childPath(path);
+        } else {
+            int index = path.indexOf(SEPARATOR);
+            String rootPath = path.substring(0, index);
+            String subPath = path.substring(index + 1);
 
-    @Override
-    public @NotNull List<@NotNull Float> getFloatList(@NotNull String path) {
-        return getTypeList(path, Float.class);
-    }
+            if (section == null) {
+                if (value == null) {
+                    return null;
+                }
+                section = new ConfigurationSectionImpl(root, this, childPath(rootPath), null);
+                data().put(rootPath, section);
+                invalidate();
+            }
 
-    @Override
-    public double getDouble(@NotNull String path) {
-        return getType(path, Double.class);
+            return section.setValue(subPath, value, canonical);
+        }
     }
 
-    @Override
-    public double getDouble(@NotNull String path, double def) {
-        return getType(path, Double.class, def);
+    private void set(@NotNull String path, @Nullable Object value, boolean canonical) {
+        root.writeLock().lock();
+        try {
+            if (isReplaced()) {
+                root.getRootSection().set(path, value, canonical);
+                return;
+            }
+            String changed = setValue(path, value, canonical);
+            if (changed != null) {
+                root.changed(changed);
+            }
+        } finally {
+            root.writeLock().unlock();
+        }
     }
 
+    // changes the list in place unless it is shared, in which case it is copied once
     @Override
-    public @NotNull List<@NotNull Double> getDoubleList(@NotNull String path) {
-        return getTypeList(path, Double.class);
-    }
+    <R> R updateList(@NotNull String path, boolean create, @NotNull Function<List<Object>, R> update) {
+        root.writeLock().lock();
+        try {
+            if (isReplaced()) {
+                return root.getRootSection().updateList(path, create, update);
+            }
+            Object current = getValue(path, true);
+            if (current == null && !create) {
+                String message = NO_MAPPING_FOUND.apply(path);
+                throw new NullPointerException(message);
+            } else if (current != null && !(current instanceof List)) {
+                throw new ConfigurationTypeException(path, List.class, current);
+            } else if (current == null || getValue(path, false) != current) {
+                // lists which are missing from the file start from the default ones, and
+                // they are only stored once updated, so that failed updates leave no trace
+                List<Object> list = new ArrayList<>(current != null ? (List<?>) current : Collections.emptyList());
+                R ret = update.apply(list);
+                String changed = setValue(path, list);
+                if (changed != null) {
+                    root.changed(changed);
+                }
+                return ret;
+            }
 
-    @Override
-    public boolean getBoolean(@NotNull String path) {
-        return getType(path, Boolean.class);
+            ConfigurationSectionImpl section = getOwner(path);
+            String key = path.substring(path.lastIndexOf(SEPARATOR) + 1);
+            List<Object> list = section.ownList(key);
+            R ret = update.apply(list);
+            section.invalidate();
+            root.changed(section.childPath(key));
+            return ret;
+        } finally {
+            root.writeLock().unlock();
+        }
     }
 
-    @Override
-    public boolean getBoolean(@NotNull String path, boolean def) {
-        return getType(path, Boolean.class, def);
+    // must be called while holding the write lock, collects the paths which were changed
+    private void merge(@NotNull Map<?, ?> source, @NotNull MergePolicy policy, @NotNull Set<String> changed) {
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            String path = Objects.toString(entry.getKey());
+            Object value = entry.getValue();
+            Object current = getValue(path, false);
+            if (value instanceof Map<?, ?> map && current instanceof ConfigurationSectionImpl section) {
+                section.merge(map, policy, changed);
+            } else if (value != null && (current == null || policy != MergePolicy.KEEP_EXISTING)) {
+                if (policy == MergePolicy.CONCATENATE_LISTS && current instanceof List && value instanceof List<?> addition) {
+                    ConfigurationSectionImpl section = getOwner(path);
+                    String key = path.substring(path.lastIndexOf(SEPARATOR) + 1);
+                    List<Object> list = section.ownList(key);
+                    for (Object obj : addition) {
+                        list.add(normalize(obj));
+                    }
+                    section.invalidate();
+                    changed.add(section.childPath(key));
+                } else {
+                    String ret = setValue(path, value);
+                    if (ret != null) {
+                        changed.add(ret);
+                    }
+                }
+            }
+        }
     }
 
-    @Override
-    public @NotNull List<@NotNull Boolean> getBooleanList(@NotNull String path) {
-        return getTypeList(path, Boolean.class);
+    // the returned section is expanded from the given snapshot one level at a time, as it is accessed
+    private static @NotNull ConfigurationSectionImpl copyOf(@NotNull Configuration root,
+                                                            @Nullable ConfigurationSectionImpl parent,
+                                                            @NotNull String path,
+                                                            @NotNull Map<String, Object> snapshot) {
+        ConfigurationSectionImpl ret = new ConfigurationSectionImpl(root, parent, path, null);
+        ret.snapshot = snapshot;
+        ret.source = snapshot;
+        return ret;
     }
 
-    @Override
-    public @NotNull String getString(@NotNull String path) {
-        return getType(path, String.class);
+    private @NotNull Map<String, Object> data() {
+        if (source != null) {
+            expand();
+        }
+        return data;
     }
 
-    @Override
-    public @Nullable String getString(@NotNull String path, @Nullable String def) {
-        return getType(path, String.class, def);
+    // readers may expand sections concurrently, data is then published by clearing the source
+    @SuppressWarnings("unchecked")
+    private synchronized void expand() {
+        Map<String, Object> tree = source;
+        if (tree != null) {
+            for (Map.Entry<String, Object> entry : tree.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Map<?, ?> map) {
+                    value = copyOf(root, this, childPath(entry.getKey()), (Map<String, Object>) map);
+                }
+                data.put(entry.getKey(), value);
+            }
+            source = null;
+        }
     }
 
-    @Override
-    public @NotNull List<@NotNull String> getStringList(@NotNull String path) {
-        return getTypeList(path, String.class);
+    // must be called while holding the write lock, returns the section which stores the value of an existing path
+    private @NotNull ConfigurationSectionImpl getOwner(@NotNull String path) {
+        ConfigurationSectionImpl section = this;
+        int start = 0;
+        for (int index = path.indexOf(SEPARATOR); index != -1; index = path.indexOf(SEPARATOR, start)) {
+            section = (ConfigurationSectionImpl) section.data().get(path.substring(start, index));
+            start = index + 1;
+        }
+        return section;
     }
 
-    @Override
-    public <T extends Enum<T>> @NotNull T getEnum(@NotNull String path, @NotNull Class<T> enumClass) {
-        // lock not needed as get already worries about that
-        Object obj = get(path);
-        T ret = mapToEnum(enumClass, obj, null);
+    // must be called while holding the read lock, only sections changed since the last snapshot are copied
+    @NotNull Map<String, Object> snapshot() {
+        Map<String, Object> ret = snapshot;
         if (ret == null) {
-            throw new ConfigurationTypeException(path, enumClass, obj);
+            Map<String, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : data().entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof ConfigurationSectionImpl section) {
+                    value = section.snapshot();
+                } else if (value instanceof List<?> list) {
+                    value = snapshot(list);
+                }
+                copy.put(entry.getKey(), value);
+            }
+            ret = Collections.unmodifiableMap(copy);
+            snapshot = ret;
         }
         return ret;
     }
 
-    @Override
-    public <T extends Enum<T>> @Nullable T getEnum(@NotNull String path, @NotNull Class<T> enumClass, @Nullable T def) {
-        // lock not needed as get already worries about that
-        Object obj = get(path, null);
-        T ret = mapToEnum(enumClass, obj, def);
-        if (ret == null && obj != null) {
-            throw new ConfigurationTypeException(path, enumClass, obj);
+    // must be called while holding the write lock whenever data is changed
+    private void invalidate() {
+        // a missing snapshot implies that ancestors have no snapshot either
+        for (ConfigurationSectionImpl section = this; section != null && section.snapshot != null; section = section.parent) {
+            section.snapshot = null;
         }
-        return ret;
     }
 
-    @Override
-    @SuppressWarnings("unchecked")
-    public @NotNull <T extends Enum<T>> List<@NotNull T> getEnumList(@NotNull String path, @NotNull Class<T> enumClass) {
-        // lock not needed as getList already worries about that and returns a new collection
-        List<Object> objs = getList(path);
-        List<T> ret = new ArrayList<>();
-        for (Object obj : objs) {
-            T entry = mapToEnum(enumClass, obj, null);
-            if (entry != null) {
-                ret.add(entry);
-            } else {
-                throw new ConfigurationListTypeException(path, enumClass, objs, obj);
+    // shared lists are never modified in place, hence they can be shared unless they contain sections
+    private static @NotNull List<?> snapshot(@NotNull List<?> list) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) instanceof ConfigurationSectionImpl) {
+                List<Object> copy = new ArrayList<>(list.size());
+                for (Object obj : list) {
+                    copy.add(obj instanceof ConfigurationSectionImpl section ? section.snapshot() : obj);
+                }
+                return copy;
             }
         }
-        return ret;
-    }
-
-
-    // ============================================
-    //                   INTERNAL
-    // ============================================
-
-    @NotNull Map<String, Object> getData() {
-        return data;
-    }
-
-    @NotNull Configuration getRoot() {
-        return root;
+        if (list instanceof OwnedList owned && !owned.shared) {
+            owned.shared = true;
+        }
+        return list;
     }
 
-    @SuppressWarnings("unchecked")
-    private <T extends Enum<T>> @Nullable T mapToEnum(@NotNull Class<T> enumClass, @Nullable Object obj, @Nullable T def) {
-        T ret = null;
-        if (obj == null) {
-            if (def != null) {
-                ret = def;
-            }
-        } else if (obj instanceof String str) {
-            try {
-                str = str.toUpperCase();
-                return Enum.valueOf(enumClass, str);
-            } catch (IllegalArgumentException ignored) {
-                // simply return null
-            }
-        } else {
-            try {
-                ret = (T) obj;
-            } catch (ClassCastException ignored) {
-                // simply return null
-            }
+    // must be called while holding the write lock, returns a list which is not shared with anyone else
+    private @NotNull List<Object> ownList(@NotNull String key) {
+        Object value = data().get(key);
+        if (value instanceof OwnedList list && !list.shared) {
+            return list;
         }
-        return ret;
+        OwnedList copy = new OwnedList((List<?>) value);
+        data().put(key, copy);
+        return copy;
     }
 
     @SuppressWarnings("unchecked")
@@ -436,17 +583,10 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
     private <T> @Nullable T get(@NotNull String path, @Nullable T def, boolean throwIfNull) {
         root.readLock().lock();
         try {
-            Object ret = null;
-            ConfigurationSection section = getSectionFor(path);
-            if (section == this) {
-                ret = data.get(path);
-            } else if (section != null) {
-                String subPath = getSubPath(path);
-                ret = section.get(subPath, def);
-            }
-            if (ret == null && throwIfNull) {
-                String message = NO_MAPPING_FOUND.apply(path);
-                throw new NullPointerException(message);
+            Object ret = lookup(path, throwIfNull);
+            if (ret instanceof OwnedList list && !list.shared) {
+                // the caller may keep the list, which must not be changed from now on
+                list.shared = true;
             }
             return ret == null ? def : (T) ret;
         } finally {
@@ -454,72 +594,55 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private @NotNull <T> Function<Object, @Nullable T> getMapperFor(@NotNull Class<T> type) {
-        return (Function<Object, @Nullable T>) mappers.get(type);
-    }
-
-    private <T> @NotNull T getType(@NotNull String path, @NotNull Class<T> type) {
-        Object obj = get(path);
-        T ret = getMapperFor(type).apply(obj);
-        if (ret == null) {
-            throw new ConfigurationTypeException(path, type, obj);
-        }
-        return ret;
-    }
-
-    @Contract("_, _, !null -> !null")
-    private <T> T getType(@NotNull String path, @NotNull Class<T> type, @Nullable T def) {
-        Object obj = get(path, null);
-        if (obj == null) {
-            return def;
-        } else {
-            T ret = getMapperFor(type).apply(obj);
+    // returns the stored value itself, which must not be handed over to callers as is
+    @Contract("_, true -> !null")
+    private @Nullable Object lookup(@NotNull String path, boolean throwIfNull) {
+        root.readLock().lock();
+        try {
+            // overrides are looked up by absolute path before traversing the tree
+            Object ret = root.getOverride(this.path, path);
             if (ret == null) {
-                throw new ConfigurationTypeException(path, type, obj);
+                ret = root.getCounted(this.path, path, getValue(path, true));
+            }
+            if (ret == null && throwIfNull) {
+                String message = NO_MAPPING_FOUND.apply(path);
+                throw new NullPointerException(message);
             }
             return ret;
+        } finally {
+            root.readLock().unlock();
         }
     }
 
-    @Contract("_, _ -> new")
-    private <T> @NotNull List<@NotNull T> getTypeList(@NotNull String path, @NotNull Class<T> type) {
-        List<T> list = new ArrayList<>();
-        List<Object> ret = getList(path);
-        for (Object obj : ret) {
-            T value = getMapperFor(type).apply(obj);
-            if (value != null) {
-                list.add(value);
-            } else {
-                throw new ConfigurationListTypeException(path, type, ret, obj);
-            }
+    // must be called while holding the read lock, missing values fall back to defaults if requested
+    @Nullable Object getValue(@NotNull String path, boolean fallback) {
+        Object ret = null;
+        ConfigurationSectionImpl section = getSectionFor(path);
+        if (section == this) {
+            ret = data().get(path);
+        } else if (section != null) {
+            return section.getValue(getSubPath(path), fallback);
         }
-        return list;
+        if (ret == null && fallback && defaults != null) {
+            ret = defaults.getValue(path);
+        }
+        return ret;
     }
 
-    @Contract("_, _, !null, _ -> !null; _, _, _, true -> !null")
-    private @Nullable ConfigurationSection getSection(@NotNull String rootPath,
-                                                      @NotNull String relativePath,
+    @Contract("_, !null, _, _ -> !null; _, _, true, _ -> !null")
+    private @Nullable ConfigurationSection getSection(@NotNull String path,
                                                       @Nullable ConfigurationSection def,
-                                                      boolean throwIfNull) {
+                                                      boolean throwIfNull,
+                                                      boolean fallback) {
         root.readLock().lock();
         try {
-            Object section = null;
-            ConfigurationSectionImpl ret = getSectionFor(relativePath);
-            String subPath = getSubPath(relativePath);
-            if (ret == this) {
-                section = data.get(subPath);
-            } else if (ret != null) {
-                section = ret.getSection(rootPath, subPath, def, false);
-            }
-            if (section != null) {
-                try {
-                    return (ConfigurationSection) section;
-                } catch (ClassCastException ignored) {
-                    throw new ConfigurationTypeException(rootPath, ConfigurationSection.class, section);
-                }
+            Object section = getValue(path, fallback);
+            if (section instanceof ConfigurationSection ret) {
+                return ret;
+            } else if (section != null) {
+                throw new ConfigurationTypeException(path, ConfigurationSection.class, section);
             } else if (throwIfNull) {
-                String message = NO_MAPPING_FOUND.apply(rootPath);
+                String message = NO_MAPPING_FOUND.apply(path);
                 throw new NullPointerException(message);
             }
             return def;
@@ -536,16 +659,42 @@ final class ConfigurationSectionImpl implements ConfigurationSection {
                 return this;
             } else {
                 String rootPath = path.substring(0, index);
-                return (ConfigurationSectionImpl) data.get(rootPath);
+                return (ConfigurationSectionImpl) data().get(rootPath);
             }
         } finally {
             root.readLock().unlock();
         }
     }
 
+    private @NotNull String childPath(@NotNull String key) {
+        return path.isEmpty() ? key : path + SEPARATOR + key;
+    }
+
+    // must be called while holding the write lock: the root section is replaced when the configuration is reloaded,
+    // hence changes made through the previous one, which may have been read just before, are made to the current one
+    private boolean isReplaced() {
+        return parent == null && root.getRootSection() != this;
+    }
+
     private @NotNull String getSubPath(@NotNull String path) {
         int index = path.indexOf(SEPARATOR);
         return index == -1 ? path : path.substring(index + 1);
     }
 
+    // a list stored by a section, which is changed in place until it is shared with a snapshot or a caller
+    @SuppressWarnings("serial")
+    private static final class OwnedList extends ArrayList<Object> {
+
+        private volatile boolean shared;
+
+        private OwnedList(int initialCapacity) {
+            super(initialCapacity);
+        }
+
+        private OwnedList(@NotNull Collection<?> list) {
+            super(list);
+        }
+
+    }
+
 }
@@ -0,0 +1,110 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A batch of changes to be applied to a {@link Configuration} all at once.
+ * <p>
+ * Changes are staged in the same order as they are requested and they are applied by
+ * {@link Configuration#edit(java.util.function.Consumer) edit} under a single write lock acquisition,
+ * so that concurrent readers either see all of them or none of them.<br>
+ * Staged changes are not visible through the {@link Configuration} until the transaction completes.
+ * <p>
+ * Transactions are not thread-safe and must not be used outside of the {@code edit} call which created them.
+ *
+ * @since 2.3.0
+ */
+public final class ConfigurationTransaction {
+
+    private final List<Map.Entry<String, Object>> changes = new ArrayList<>();
+    private boolean aborted;
+
+    ConfigurationTransaction() {
+    }
+
+
+    /**
+     * Stages the mapping of {@code path} to {@code value},
+     * as if calling {@link ConfigurationSection#set(String, Object)}.
+     *
+     * @param path  the path of the value that should be set.
+     * @param value the value that should be set, {@code null} to remove the mapping.
+     * @since 2.3.0
+     */
+    public void set(@NotNull String path, @Nullable Object value) {
+        changes.add(new AbstractMap.SimpleImmutableEntry<>(path, value));
+    }
+
+
+    /**
+     * Stages the removal of the mapping of {@code path},
+     * as if calling {@link ConfigurationSection#unset(String)}.
+     *
+     * @param path the path of the value that should be removed.
+     * @since 2.3.0
+     */
+    public void unset(@NotNull String path) {
+        set(path, null);
+    }
+
+
+    /**
+     * Discards all the changes of this transaction, including the ones that are staged afterwards.<br>
+     * The {@link Configuration} will not be changed at all.
+     *
+     * @since 2.3.0
+     */
+    public void abort() {
+        aborted = true;
+    }
+
+
+    /**
+     * Returns whether this transaction was {@link #abort() aborted}.
+     *
+     * @return {@code true} if this transaction was aborted, {@code false} otherwise.
+     * @since 2.3.0
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    @NotNull List<Map.Entry<String, Object>> getChanges() {
+        return aborted ? Collections.emptyList() : changes;
+    }
+
+}
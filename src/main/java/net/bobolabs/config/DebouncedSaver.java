@@ -0,0 +1,81 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class DebouncedSaver {
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Configuration config;
+    private final long maxDelay;
+    private final long delay;
+
+    private volatile long lastChange;
+    private long firstChange;
+
+    // the scheduled save, if any
+    private volatile ScheduledFuture<?> task;
+
+    DebouncedSaver(@NotNull Configuration config, long delay, long maxDelay) {
+        this.config = config;
+        this.maxDelay = maxDelay;
+        this.delay = delay;
+    }
+
+    // cheap enough to be called on every change: at most one save is pending at any time
+    void changed() {
+        long now = System.nanoTime();
+        lastChange = now;
+        if (scheduled.compareAndSet(false, true)) {
+            firstChange = now;
+            task = Scheduler.EXECUTOR.schedule(this::run, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // called once the configuration is closed, whose changes are then saved by flushing it
+    void cancel() {
+        ScheduledFuture<?> task = this.task;
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    private void run() {
+        // save once no change happened for delay, or once maxDelay elapsed since the first change
+        long now = System.nanoTime();
+        long deadline = Math.min(lastChange + delay, firstChange + maxDelay);
+        if (now - deadline < 0) {
+            task = Scheduler.EXECUTOR.schedule(this::run, deadline - now, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        // changes made while saving schedule a new save
+        scheduled.set(false);
+        config.save();
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// group commit of many configurations: changes only mark configurations as dirty and all of them
+// are saved together at a fixed cadence, hence I/O scales with the flush interval rather than with changes
+final class FlushScheduler {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final Set<Configuration> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+
+    FlushScheduler(int threads) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "BoboConfig Flusher #" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // periodically flushes dirty configurations until this scheduler is garbage collected
+    void schedule(long interval) {
+        new Flush(this).schedule(interval);
+    }
+
+    // cheap enough to be called on every change
+    void changed(@NotNull Configuration config) {
+        dirty.add(config);
+    }
+
+    // called once the configuration is unloaded, so that it is not kept reachable until the next flush
+    void removed(@NotNull Configuration config) {
+        dirty.remove(config);
+    }
+
+    @NotNull CompletableFuture<Void> flush() {
+        List<Configuration> batch = new ArrayList<>();
+        for (Iterator<Configuration> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            // changes made after removal mark the configuration as dirty again
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return flush(batch);
+    }
+
+    @NotNull CompletableFuture<Void> flush(@NotNull Collection<Configuration> configs) {
+        dirty.removeAll(configs);
+        CompletableFuture<?>[] saves = new CompletableFuture<?>[configs.size()];
+        int i = 0;
+        for (Configuration config : configs) {
+            saves[i++] = CompletableFuture.runAsync(config::save, executor);
+        }
+        CompletableFuture<Void> flush = CompletableFuture.allOf(saves);
+        pending.add(flush);
+        flush.whenComplete((result, throwable) -> pending.remove(flush));
+        return flush;
+    }
+
+    // waits for flushes that are in progress, not for the ones started in the meantime
+    void await() throws InterruptedException {
+        for (CompletableFuture<Void> flush : new ArrayList<>(pending)) {
+            try {
+                flush.get();
+            } catch (ExecutionException ignored) {
+                // save failures are already reported by the configuration itself
+            }
+        }
+    }
+
+    private static final class Flush implements Runnable {
+
+        private final WeakReference<FlushScheduler> scheduler;
+        private ScheduledFuture<?> future;
+
+        private Flush(@NotNull FlushScheduler scheduler) {
+            this.scheduler = new WeakReference<>(scheduler);
+        }
+
+        private synchronized void schedule(long interval) {
+            future = Scheduler.EXECUTOR.scheduleAtFixedRate(this, interval, interval, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public synchronized void run() {
+            FlushScheduler scheduler = this.scheduler.get();
+            if (scheduler == null) {
+                future.cancel(false);
+            } else {
+                scheduler.flush();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+final class GzipCodec implements ConfigurationCodec {
+
+    static final GzipCodec INSTANCE = new GzipCodec();
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private GzipCodec() {
+    }
+
+    @Override
+    public boolean isEncoded(byte @NotNull [] header) {
+        return header.length >= 2
+                && (header[0] & 0xFF) == (GZIPInputStream.GZIP_MAGIC & 0xFF)
+                && (header[1] & 0xFF) == (GZIPInputStream.GZIP_MAGIC >>> 8);
+    }
+
+    @Override
+    public int getHeaderLength() {
+        return 2;
+    }
+
+    @Override
+    public @NotNull InputStream decode(@NotNull InputStream in) throws IOException {
+        return new GZIPInputStream(in, BUFFER_SIZE);
+    }
+
+    @Override
+    public @NotNull OutputStream encode(@NotNull OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE);
+    }
+
+}
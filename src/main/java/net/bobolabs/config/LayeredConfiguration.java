@@ -0,0 +1,949 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+
+
+/**
+ * A read-through stack of {@link Configuration}s, where values found in upper layers
+ * override the ones found in lower layers (e.g.&nbsp;a network-wide base configuration
+ * plus per-server overrides).
+ * <p>
+ * Sections which are present in more than one layer are merged, whereas any leaf value
+ * shadows whatever is mapped to the same path in lower layers.<br>
+ * All layers are resolved into a single flattened table of values, so that any read operation
+ * costs one lookup regardless of the number of layers. Whenever a layer changes (including updates
+ * of its counters), only the affected root level path is resolved again, right before the next read operation.<br>
+ * Layers are resolved through their getters, hence system overrides, default values and counters
+ * of each layer apply as if it was read directly. Unlike {@link Configuration#getKeys(TraversalMode)},
+ * keys which are only found in default values or system overrides are part of the layered configuration.<br>
+ * Write operations are delegated to the topmost layer.
+ * <p>
+ * Any operation performed on a layered configuration is thread-safe.
+ *
+ * @since 2.3.0
+ */
+public final class LayeredConfiguration implements ConfigurationSection {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+    private final Map<String, Object> resolved = new HashMap<>();
+    private final Branch rootBranch = new Branch();
+    private final Consumer<String> listener;
+    private final List<Configuration> layers;
+    private final LayeredSection section;
+
+    private volatile boolean invalidated;
+
+    private LayeredConfiguration(@NotNull List<Configuration> layers) {
+        this.layers = List.copyOf(layers);
+        this.section = new LayeredSection(this, "");
+        this.listener = this::onLayerChange;
+        this.invalidated = true;
+
+        for (Configuration layer : this.layers) {
+            layer.addListener(listener);
+        }
+        refresh();
+    }
+
+
+    /**
+     * Stacks the given configurations on top of each other.
+     * <p>
+     * Layers are to be provided from the lowest to the highest priority,
+     * hence the last layer overrides all the previous ones.
+     *
+     * @param layers the configurations that are to be stacked, from the lowest to the highest priority.
+     * @return       a new layered configuration.
+     * @throws IllegalArgumentException if no layer is provided.
+     * @since        2.3.0
+     */
+    public static @NotNull LayeredConfiguration of(@NotNull Configuration @NotNull ... layers) {
+        return of(Arrays.asList(layers));
+    }
+
+
+    /**
+     * Stacks the given configurations on top of each other.
+     * <p>
+     * Layers are to be provided from the lowest to the highest priority,
+     * hence the last layer overrides all the previous ones.
+     *
+     * @param layers the configurations that are to be stacked, from the lowest to the highest priority.
+     * @return       a new layered configuration.
+     * @throws IllegalArgumentException if no layer is provided.
+     * @since        2.3.0
+     */
+    public static @NotNull LayeredConfiguration of(@NotNull List<@NotNull Configuration> layers) {
+        if (layers.isEmpty()) {
+            throw new IllegalArgumentException("at least one layer must be provided");
+        }
+        return new LayeredConfiguration(layers);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public boolean contains(@NotNull String path) {
+        return section.contains(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull Object get(@NotNull String path) {
+        return section.get(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public <T> @Nullable T get(@NotNull String path, @Nullable T def) {
+        return section.get(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@Nullable Object> getList(@NotNull String path) {
+        return section.getList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void set(@NotNull String path, @Nullable Object value) {
+        section.set(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void unset(@NotNull String path) {
+        section.unset(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setInt(@NotNull String path, int value) {
+        section.setInt(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setLong(@NotNull String path, long value) {
+        section.setLong(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setDouble(@NotNull String path, double value) {
+        section.setDouble(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setBoolean(@NotNull String path, boolean value) {
+        section.setBoolean(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setString(@NotNull String path, @Nullable String value) {
+        section.setString(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setEnum(@NotNull String path, @Nullable Enum<?> value) {
+        section.setEnum(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setIntList(@NotNull String path, int @NotNull [] values) {
+        section.setIntList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setLongList(@NotNull String path, long @NotNull [] values) {
+        section.setLongList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setDoubleList(@NotNull String path, double @NotNull [] values) {
+        section.setDoubleList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setBooleanList(@NotNull String path, boolean @NotNull [] values) {
+        section.setBooleanList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable Object compute(@NotNull String path, @NotNull UnaryOperator<@Nullable Object> function) {
+        return section.compute(path, function);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public int computeInt(@NotNull String path, @NotNull IntUnaryOperator function) {
+        return section.computeInt(path, function);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public boolean compareAndSet(@NotNull String path, @Nullable Object expected, @Nullable Object value) {
+        return section.compareAndSet(path, expected, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void copySection(@NotNull String from, @NotNull String to) {
+        section.copySection(from, to);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void merge(@NotNull Map<?, ?> source, @NotNull MergePolicy policy) {
+        section.merge(source, policy);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void merge(@NotNull ConfigurationSection source, @NotNull MergePolicy policy) {
+        section.merge(source, policy);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void appendToList(@NotNull String path, @Nullable Object value) {
+        section.appendToList(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void insertListElement(@NotNull String path, int index, @Nullable Object value) {
+        section.insertListElement(path, index, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable Object setListElement(@NotNull String path, int index, @Nullable Object value) {
+        return section.setListElement(path, index, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable Object removeListElement(@NotNull String path, int index) {
+        return section.removeListElement(path, index);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull ConfigurationSection createSection(@NotNull String path) {
+        return section.createSection(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull ConfigurationSection getOrCreateSection(@NotNull String path) {
+        return section.getOrCreateSection(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull ConfigurationSection getSection(@NotNull String path) {
+        return section.getSection(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable ConfigurationSection getSection(@NotNull String path, @Nullable ConfigurationSection def) {
+        return section.getSection(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull Set<@NotNull String> getKeys(@NotNull TraversalMode traversalMode) {
+        return section.getKeys(traversalMode);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public byte getByte(@NotNull String path) {
+        return section.getByte(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public byte getByte(@NotNull String path, byte def) {
+        return section.getByte(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Byte> getByteList(@NotNull String path) {
+        return section.getByteList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public short getShort(@NotNull String path) {
+        return section.getShort(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public short getShort(@NotNull String path, short def) {
+        return section.getShort(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Short> getShortList(@NotNull String path) {
+        return section.getShortList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public int getInt(@NotNull String path) {
+        return section.getInt(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public int getInt(@NotNull String path, int def) {
+        return section.getInt(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Integer> getIntList(@NotNull String path) {
+        return section.getIntList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public long getLong(@NotNull String path) {
+        return section.getLong(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public long getLong(@NotNull String path, long def) {
+        return section.getLong(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Long> getLongList(@NotNull String path) {
+        return section.getLongList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public float getFloat(@NotNull String path) {
+        return section.getFloat(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public float getFloat(@NotNull String path, float def) {
+        return section.getFloat(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Float> getFloatList(@NotNull String path) {
+        return section.getFloatList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public double getDouble(@NotNull String path) {
+        return section.getDouble(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public double getDouble(@NotNull String path, double def) {
+        return section.getDouble(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Double> getDoubleList(@NotNull String path) {
+        return section.getDoubleList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public boolean getBoolean(@NotNull String path) {
+        return section.getBoolean(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public boolean getBoolean(@NotNull String path, boolean def) {
+        return section.getBoolean(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Boolean> getBooleanList(@NotNull String path) {
+        return section.getBooleanList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull String getString(@NotNull String path) {
+        return section.getString(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable String getString(@NotNull String path, @Nullable String def) {
+        return section.getString(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull String> getStringList(@NotNull String path) {
+        return section.getStringList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public <T extends Enum<T>> @NotNull T getEnum(@NotNull String path, @NotNull Class<T> enumClass) {
+        return section.getEnum(path, enumClass);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public <T extends Enum<T>> @Nullable T getEnum(@NotNull String path, @NotNull Class<T> enumClass, @Nullable T def) {
+        return section.getEnum(path, enumClass, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull <T extends Enum<T>> List<@NotNull T> getEnumList(@NotNull String path, @NotNull Class<T> enumClass) {
+        return section.getEnumList(path, enumClass);
+    }
+
+
+    /**
+     * Returns the layers of this layered configuration, from the lowest to the highest priority.
+     *
+     * @return an unmodifiable list of the layers of this layered configuration.
+     * @since 2.3.0
+     */
+    public @NotNull List<@NotNull Configuration> getLayers() {
+        return layers;
+    }
+
+
+    /**
+     * Stops tracking changes made to the underlying layers.
+     * <p>
+     * This layered configuration should not be used anymore after calling this method.
+     *
+     * @since 2.3.0
+     */
+    public void close() {
+        for (Configuration layer : layers) {
+            layer.removeListener(listener);
+        }
+    }
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    @NotNull Configuration getTopLayer() {
+        return layers.get(layers.size() - 1);
+    }
+
+    // returns either a leaf value, a section or null if nothing is mapped to path
+    @Nullable Object resolve(@NotNull String path) {
+        refresh();
+        lock.readLock().lock();
+        try {
+            Object ret = resolved.get(path);
+            return ret instanceof Branch ? new LayeredSection(this, path) : ret;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @NotNull Set<@NotNull String> getKeys(@NotNull String path, @NotNull TraversalMode traversalMode) {
+        refresh();
+        lock.readLock().lock();
+        try {
+            Set<String> accumulator = new LinkedHashSet<>();
+            Branch branch = path.isEmpty() ? rootBranch : (resolved.get(path) instanceof Branch b ? b : null);
+            if (branch != null) {
+                collectKeys(branch, path, "", traversalMode, accumulator);
+            }
+            return accumulator;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectKeys(@NotNull Branch branch,
+                             @NotNull String path,
+                             @NotNull String prefix,
+                             @NotNull TraversalMode traversalMode,
+                             @NotNull Set<String> accumulator) {
+        for (String key : branch.keys) {
+            Object value = resolved.get(childPath(path, key));
+            if (traversalMode != TraversalMode.LEAVES || !(value instanceof Branch)) {
+                accumulator.add(prefix + key);
+            }
+            if (traversalMode != TraversalMode.ROOT && value instanceof Branch sub) {
+                collectKeys(sub, childPath(path, key), prefix + key + AbstractConfigurationSection.SEPARATOR, traversalMode, accumulator);
+            }
+        }
+    }
+
+    // layers notify changes while holding their own write lock, hence this
+    // layered configuration lock must not be acquired here as it would invert
+    // lock ordering with refresh (which locks layers while holding this lock)
+    private void onLayerChange(@NotNull String path) {
+        if (path.isEmpty()) {
+            invalidated = true;
+        } else {
+            int index = path.indexOf(AbstractConfigurationSection.SEPARATOR);
+            stale.add(index == -1 ? path : path.substring(0, index));
+        }
+    }
+
+    private void refresh() {
+        if (!invalidated && stale.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (invalidated) {
+                invalidated = false;
+                stale.clear();
+                resolved.clear();
+                rootBranch.keys.clear();
+
+                Set<String> keys = new LinkedHashSet<>();
+                for (Configuration layer : layers) {
+                    layer.readLock().lock();
+                    try {
+                        keys.addAll(layer.getReadableKeys(""));
+                    } finally {
+                        layer.readLock().unlock();
+                    }
+                }
+                stale.addAll(keys);
+            }
+
+            Iterator<String> iterator = stale.iterator();
+            while (iterator.hasNext()) {
+                String key = iterator.next();
+                iterator.remove();
+                rebuild(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuild(@NotNull String key) {
+        remove(key);
+
+        Object merged = null;
+        for (Configuration layer : layers) {
+            layer.readLock().lock();
+            try {
+                merged = merge(merged, layer, key);
+            } finally {
+                layer.readLock().unlock();
+            }
+        }
+
+        if (merged == null) {
+            rootBranch.keys.remove(key);
+        } else {
+            rootBranch.keys.add(key);
+            install(key, merged);
+        }
+    }
+
+    // called with the read lock of the layer held, values are read through its getters which resolve
+    // overrides, defaults and counters, and keys are all those which can be read rather than the stored ones
+    @SuppressWarnings("unchecked")
+    private @Nullable Object merge(@Nullable Object base, @NotNull Configuration layer, @NotNull String path) {
+        Object value = layer.get(path, null);
+        if (value != null && !(value instanceof ConfigurationSection)) {
+            return value;
+        }
+
+        Map<String, Object> merged = (base instanceof Map<?, ?>) ? (Map<String, Object>) base : new LinkedHashMap<>();
+        for (String key : layer.getReadableKeys(path)) {
+            Object child = merge(merged.get(key), layer, childPath(path, key));
+            if (child != null) {
+                merged.put(key, child);
+            }
+        }
+        // a layer providing nothing at path leaves lower layers untouched
+        return value == null && merged.isEmpty() ? base : merged;
+    }
+
+    private void install(@NotNull String path, @NotNull Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Branch branch = new Branch();
+            resolved.put(path, branch);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String key = (String) entry.getKey();
+                branch.keys.add(key);
+                install(childPath(path, key), entry.getValue());
+            }
+        } else {
+            resolved.put(path, value);
+        }
+    }
+
+    private void remove(@NotNull String path) {
+        if (resolved.remove(path) instanceof Branch branch) {
+            for (String key : branch.keys) {
+                remove(childPath(path, key));
+            }
+        }
+    }
+
+    private static @NotNull String childPath(@NotNull String path, @NotNull String key) {
+        return path.isEmpty() ? key : path + AbstractConfigurationSection.SEPARATOR + key;
+    }
+
+    private static final class Branch {
+
+        private final Set<String> keys = new LinkedHashSet<>();
+
+    }
+
+}
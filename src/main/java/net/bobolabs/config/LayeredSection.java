@@ -0,0 +1,163 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+final class LayeredSection extends AbstractConfigurationSection {
+
+    private final LayeredConfiguration owner;
+    private final String path;
+
+    LayeredSection(@NotNull LayeredConfiguration owner, @NotNull String path) {
+        this.owner = owner;
+        this.path = path;
+    }
+
+    @Override
+    public boolean contains(@NotNull String path) {
+        return owner.resolve(absolutePath(path)) != null;
+    }
+
+    @Override
+    public @NotNull Object get(@NotNull String path) {
+        Object ret = owner.resolve(absolutePath(path));
+        if (ret == null) {
+            String message = NO_MAPPING_FOUND.apply(path);
+            throw new NullPointerException(message);
+        }
+        return ret;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(@NotNull String path, @Nullable T def) {
+        Object ret = owner.resolve(absolutePath(path));
+        return ret == null ? def : (T) ret;
+    }
+
+    @Override
+    public @NotNull List<@Nullable Object> getList(@NotNull String path) {
+        // resolved lists are never changed in place by their layer, therefore no lock is needed
+        return (get(path) instanceof List<?> list) ? new ArrayList<>(list) : Collections.emptyList();
+    }
+
+    @Override
+    public void set(@NotNull String path, @Nullable Object value) {
+        owner.getTopLayer().set(absolutePath(path), value);
+    }
+
+    @Override
+    public void unset(@NotNull String path) {
+        owner.getTopLayer().unset(absolutePath(path));
+    }
+
+    @Override
+    public boolean compareAndSet(@NotNull String path, @Nullable Object expected, @Nullable Object value) {
+        // layers must not be locked while resolving, hence the resolved value is checked
+        // optimistically and the top layer is only changed if it was not changed in the meantime
+        Configuration top = owner.getTopLayer();
+        String absolutePath = absolutePath(path);
+        while (true) {
+            Object current = top.get(absolutePath, null);
+            if (!Objects.equals(get(path, null), expected)) {
+                return false;
+            }
+            if (top.compareAndSet(absolutePath, current, value)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public @NotNull ConfigurationSection createSection(@NotNull String path) {
+        if (contains(path)) {
+            throw new IllegalArgumentException("path `" + path + "` already exists in this configuration section");
+        }
+        String absolutePath = absolutePath(path);
+        owner.getTopLayer().createSection(absolutePath);
+        return new LayeredSection(owner, absolutePath);
+    }
+
+    @Override
+    public @NotNull ConfigurationSection getOrCreateSection(@NotNull String path) {
+        ConfigurationSection section = getSection(path, null);
+        if (section == null) {
+            section = createSection(path);
+        }
+        return section;
+    }
+
+    @Override
+    public @NotNull ConfigurationSection getSection(@NotNull String path) {
+        Object section = get(path);
+        if (section instanceof ConfigurationSection ret) {
+            return ret;
+        }
+        throw new ConfigurationTypeException(path, ConfigurationSection.class, section);
+    }
+
+    @Override
+    public @Nullable ConfigurationSection getSection(@NotNull String path, @Nullable ConfigurationSection def) {
+        Object section = get(path, null);
+        if (section == null) {
+            return def;
+        } else if (section instanceof ConfigurationSection ret) {
+            return ret;
+        }
+        throw new ConfigurationTypeException(path, ConfigurationSection.class, section);
+    }
+
+    @Override
+    public @NotNull Set<@NotNull String> getKeys(@NotNull TraversalMode traversalMode) {
+        return owner.getKeys(path, traversalMode);
+    }
+
+
+    // sections are resolved again on each lookup, hence they are equal if they refer to the same path
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof LayeredSection other && other.owner == owner && other.path.equals(path);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(owner) * 31 + path.hashCode();
+    }
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    private @NotNull String absolutePath(@NotNull String path) {
+        return this.path.isEmpty() ? path : this.path + SEPARATOR + path;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * An enum that specifies how values are combined when calling
+ * {@link ConfigurationSection#merge(java.util.Map, MergePolicy) merge}.
+ * <p>
+ * Regardless of the chosen policy, sections are always merged recursively,
+ * hence policies only apply to values which are not sections on both sides.
+ *
+ * @since 2.3.0
+ */
+public enum MergePolicy {
+
+    /**
+     * Replace existing values with the merged ones.
+     *
+     * @since 2.3.0
+     */
+    OVERWRITE,
+
+    /**
+     * Keep existing values, only adding the merged values whose path is missing.
+     *
+     * @since 2.3.0
+     */
+    KEEP_EXISTING,
+
+    /**
+     * Append the elements of merged lists to existing lists,
+     * replacing any other existing value as in {@link #OVERWRITE}.
+     *
+     * @since 2.3.0
+     */
+    CONCATENATE_LISTS;
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    // combines values which are not sections on both sides, unless existing values are to be kept
+    @NotNull Object merge(@Nullable Object current, @NotNull Object value) {
+        if (this == CONCATENATE_LISTS && current instanceof List<?> list && value instanceof List<?> addition) {
+            List<Object> ret = new ArrayList<>(list.size() + addition.size());
+            ret.addAll(list);
+            ret.addAll(addition);
+            return ret;
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// mutations submitted by any thread are enqueued without locking and applied in batches by the writer thread,
+// which acquires the write lock once per batch and then publishes a new snapshot for lock-free readers
+final class MutationQueue {
+
+    private final Queue<Mutation> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Configuration config;
+
+    MutationQueue(@NotNull Configuration config) {
+        this.config = config;
+    }
+
+    // cheap enough to be called on every change: at most one drain is pending at any time
+    @NotNull CompletableFuture<Void> submit(@NotNull List<Map.Entry<String, Object>> changes) {
+        Mutation mutation = new Mutation(changes, new CompletableFuture<>());
+        queue.add(mutation);
+        if (scheduled.compareAndSet(false, true)) {
+            Scheduler.WRITER.execute(this::drain);
+        }
+        return mutation.future;
+    }
+
+    private void drain() {
+        // mutations submitted from now on schedule a new drain
+        scheduled.set(false);
+
+        List<Mutation> batch = new ArrayList<>();
+        for (Mutation mutation = queue.poll(); mutation != null; mutation = queue.poll()) {
+            batch.add(mutation);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Mutation> applied = new ArrayList<>(batch.size());
+        config.writeLock().lock();
+        try {
+            Set<String> changed = new LinkedHashSet<>();
+            for (Mutation mutation : batch) {
+                try {
+                    // a failing mutation changes nothing, hence it is left out of the batch as a whole
+                    config.apply(mutation.changes, changed);
+                    applied.add(mutation);
+                } catch (RuntimeException e) {
+                    mutation.future.completeExceptionally(e);
+                }
+            }
+            if (!changed.isEmpty()) {
+                config.changed(changed);
+            }
+            config.publish();
+        } catch (RuntimeException e) {
+            for (Mutation mutation : applied) {
+                mutation.future.completeExceptionally(e);
+            }
+            return;
+        } finally {
+            config.writeLock().unlock();
+        }
+
+        for (Mutation mutation : applied) {
+            mutation.future.complete(null);
+        }
+    }
+
+    private record Mutation(@NotNull List<Map.Entry<String, Object>> changes, @NotNull CompletableFuture<Void> future) {
+    }
+
+}
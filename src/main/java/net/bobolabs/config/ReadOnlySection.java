@@ -0,0 +1,174 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+final class ReadOnlySection extends AbstractConfigurationSection {
+
+    private final Map<String, Object> data;
+
+    private ReadOnlySection(@NotNull Map<String, Object> data) {
+        this.data = data;
+    }
+
+    // deeply copies the given tree, the resulting section can be safely shared among threads
+    static @NotNull ReadOnlySection of(@Nullable Map<?, ?> ext) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (ext != null) {
+            for (Map.Entry<?, ?> entry : ext.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Map<?, ?> map) {
+                    value = of(map);
+                } else if (value instanceof List<?> list) {
+                    value = Collections.unmodifiableList(new ArrayList<>(list));
+                }
+                if (value != null) {
+                    data.put(Objects.toString(entry.getKey()), value);
+                }
+            }
+        }
+        return new ReadOnlySection(Collections.unmodifiableMap(data));
+    }
+
+    // wraps the given immutable tree without copying it, nested maps are wrapped as they are accessed
+    static @NotNull ReadOnlySection view(@NotNull Map<String, Object> snapshot) {
+        return new ReadOnlySection(snapshot);
+    }
+
+    @Override
+    public boolean contains(@NotNull String path) {
+        return getValue(path) != null;
+    }
+
+    @Override
+    public @NotNull Object get(@NotNull String path) {
+        Object ret = getValue(path);
+        if (ret == null) {
+            String message = NO_MAPPING_FOUND.apply(path);
+            throw new NullPointerException(message);
+        }
+        return ret;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(@NotNull String path, @Nullable T def) {
+        Object ret = getValue(path);
+        return ret == null ? def : (T) ret;
+    }
+
+    @Override
+    public @NotNull List<@Nullable Object> getList(@NotNull String path) {
+        return (get(path) instanceof List<?> list) ? new ArrayList<>(list) : Collections.emptyList();
+    }
+
+    @Override
+    public void set(@NotNull String path, @Nullable Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void unset(@NotNull String path) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean compareAndSet(@NotNull String path, @Nullable Object expected, @Nullable Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public @NotNull ConfigurationSection createSection(@NotNull String path) {
+        throw readOnly();
+    }
+
+    @Override
+    public @NotNull ConfigurationSection getOrCreateSection(@NotNull String path) {
+        throw readOnly();
+    }
+
+    @Override
+    public @NotNull ConfigurationSection getSection(@NotNull String path) {
+        Object section = get(path);
+        if (section instanceof ConfigurationSection ret) {
+            return ret;
+        }
+        throw new ConfigurationTypeException(path, ConfigurationSection.class, section);
+    }
+
+    @Override
+    public @Nullable ConfigurationSection getSection(@NotNull String path, @Nullable ConfigurationSection def) {
+        Object section = getValue(path);
+        if (section == null) {
+            return def;
+        } else if (section instanceof ConfigurationSection ret) {
+            return ret;
+        }
+        throw new ConfigurationTypeException(path, ConfigurationSection.class, section);
+    }
+
+    @Override
+    public @NotNull Set<@NotNull String> getKeys(@NotNull TraversalMode traversalMode) {
+        Set<String> accumulator = new LinkedHashSet<>();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = child(entry.getValue());
+            if (traversalMode != TraversalMode.LEAVES || !(value instanceof ConfigurationSection)) {
+                accumulator.add(entry.getKey());
+            }
+            if (traversalMode != TraversalMode.ROOT && value instanceof ConfigurationSection section) {
+                for (String subKey : section.getKeys(traversalMode)) {
+                    accumulator.add(entry.getKey() + "." + subKey);
+                }
+            }
+        }
+        return accumulator;
+    }
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    @Nullable Object getValue(@NotNull String path) {
+        int index = path.indexOf(SEPARATOR);
+        if (index == -1) {
+            return child(data.get(path));
+        } else if (child(data.get(path.substring(0, index))) instanceof ReadOnlySection section) {
+            return section.getValue(path.substring(index + 1));
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @Nullable Object child(@Nullable Object value) {
+        return value instanceof Map<?, ?> map ? new ReadOnlySection((Map<String, Object>) map) : value;
+    }
+
+    private static @NotNull UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("configuration section is read-only");
+    }
+
+}
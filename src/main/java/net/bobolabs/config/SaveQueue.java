@@ -0,0 +1,123 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+// asynchronous saves of a configuration: requests made while a save is queued share that save, as it has not taken
+// its snapshot yet, while saves queued by all configurations are bounded so that they never pile up: once the bound
+// is reached callers save inline, as waiting could deadlock when they hold a lock the executor needs
+final class SaveQueue {
+
+    static final int MAX_QUEUED_SAVES = 64;
+
+    private static final Semaphore QUEUED = new Semaphore(MAX_QUEUED_SAVES);
+
+    private final Configuration config;
+
+    // guarded by this
+    private CompletableFuture<Void> queued;
+    private CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+
+    SaveQueue(@NotNull Configuration config) {
+        this.config = config;
+    }
+
+    @NotNull CompletableFuture<Void> submit() {
+        synchronized (this) {
+            if (queued != null) {
+                return queued;
+            }
+        }
+
+        if (!QUEUED.tryAcquire()) {
+            return saveInline();
+        }
+
+        CompletableFuture<Void> future;
+        synchronized (this) {
+            if (queued != null) {
+                QUEUED.release();
+                return queued;
+            }
+            future = queued = new CompletableFuture<>();
+            track(future);
+        }
+        try {
+            Scheduler.EXECUTOR.execute(() -> run(future));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                queued = null;
+            }
+            QUEUED.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // completed once saves submitted so far are completed, successfully or not
+    synchronized @NotNull CompletableFuture<Void> pending() {
+        return last;
+    }
+
+    // may run along with a queued save, yet snapshots are saved only if newer than the saved one
+    private @NotNull CompletableFuture<Void> saveInline() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (this) {
+            if (queued != null) {
+                return queued;
+            }
+            track(future);
+        }
+        try {
+            config.trySave();
+            future.complete(null);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // guarded by this, inline saves may still be running when a save is queued and vice versa
+    private void track(@NotNull CompletableFuture<Void> future) {
+        last = CompletableFuture.allOf(last.handle((result, e) -> null), future);
+    }
+
+    private void run(@NotNull CompletableFuture<Void> future) {
+        synchronized (this) {
+            // requests made from now on need a new save
+            queued = null;
+        }
+        QUEUED.release();
+        try {
+            config.trySave();
+            future.complete(null);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+}
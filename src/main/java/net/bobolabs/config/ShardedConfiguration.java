@@ -0,0 +1,906 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+
+
+/**
+ * A configuration persisted as a directory, where each root level section
+ * (a <i>shard</i>) is stored in its own file named after its key (e.g.&nbsp;one file per player).
+ * <p>
+ * Shards are loaded on demand the first time they are accessed, and each shard is an independent
+ * {@link Configuration}, hence changing a shard only affects its own file. Both loading and saving
+ * therefore scale with the size of the shards which are actually used rather than with the whole data set.<br>
+ * Shards are loaded with the same options provided to the {@link ConfigurationLoader} this sharded
+ * configuration was {@link ConfigurationLoader#loadSharded() loaded} from, except for system overrides.
+ * <p>
+ * Only sections can be mapped to root level keys, which must also be valid file names.
+ * Traversing sub keys through {@link #getKeys(TraversalMode)} loads every shard.
+ * <p>
+ * Any operation performed on a sharded configuration is thread-safe.
+ *
+ * @since 2.3.0
+ */
+public final class ShardedConfiguration implements ConfigurationSection {
+
+    static final String EXTENSION = ".yml";
+
+    private final Map<String, Configuration> shards = new ConcurrentHashMap<>();
+    private final ShardLoader loader;
+    private final ShardedSection section;
+    private final File directory;
+    private final ScheduledFuture<?> compaction;
+
+    ShardedConfiguration(@NotNull File directory, long journalCompaction, @NotNull ShardLoader loader) {
+        this.section = new ShardedSection(this);
+        this.directory = directory;
+        this.loader = loader;
+        this.compaction = journalCompaction > 0
+                ? ConfigurationJournal.scheduleCompaction(this, ShardedConfiguration::compactJournals, journalCompaction)
+                : null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public boolean contains(@NotNull String path) {
+        return section.contains(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull Object get(@NotNull String path) {
+        return section.get(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public <T> @Nullable T get(@NotNull String path, @Nullable T def) {
+        return section.get(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@Nullable Object> getList(@NotNull String path) {
+        return section.getList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void set(@NotNull String path, @Nullable Object value) {
+        section.set(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void unset(@NotNull String path) {
+        section.unset(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setInt(@NotNull String path, int value) {
+        section.setInt(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setLong(@NotNull String path, long value) {
+        section.setLong(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setDouble(@NotNull String path, double value) {
+        section.setDouble(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setBoolean(@NotNull String path, boolean value) {
+        section.setBoolean(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setString(@NotNull String path, @Nullable String value) {
+        section.setString(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setEnum(@NotNull String path, @Nullable Enum<?> value) {
+        section.setEnum(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setIntList(@NotNull String path, int @NotNull [] values) {
+        section.setIntList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setLongList(@NotNull String path, long @NotNull [] values) {
+        section.setLongList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setDoubleList(@NotNull String path, double @NotNull [] values) {
+        section.setDoubleList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void setBooleanList(@NotNull String path, boolean @NotNull [] values) {
+        section.setBooleanList(path, values);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable Object compute(@NotNull String path, @NotNull UnaryOperator<@Nullable Object> function) {
+        return section.compute(path, function);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public int computeInt(@NotNull String path, @NotNull IntUnaryOperator function) {
+        return section.computeInt(path, function);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public boolean compareAndSet(@NotNull String path, @Nullable Object expected, @Nullable Object value) {
+        return section.compareAndSet(path, expected, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void copySection(@NotNull String from, @NotNull String to) {
+        section.copySection(from, to);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void merge(@NotNull Map<?, ?> source, @NotNull MergePolicy policy) {
+        section.merge(source, policy);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void merge(@NotNull ConfigurationSection source, @NotNull MergePolicy policy) {
+        section.merge(source, policy);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void appendToList(@NotNull String path, @Nullable Object value) {
+        section.appendToList(path, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public void insertListElement(@NotNull String path, int index, @Nullable Object value) {
+        section.insertListElement(path, index, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable Object setListElement(@NotNull String path, int index, @Nullable Object value) {
+        return section.setListElement(path, index, value);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable Object removeListElement(@NotNull String path, int index) {
+        return section.removeListElement(path, index);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull ConfigurationSection createSection(@NotNull String path) {
+        return section.createSection(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull ConfigurationSection getOrCreateSection(@NotNull String path) {
+        return section.getOrCreateSection(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull ConfigurationSection getSection(@NotNull String path) {
+        return section.getSection(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable ConfigurationSection getSection(@NotNull String path, @Nullable ConfigurationSection def) {
+        return section.getSection(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull Set<@NotNull String> getKeys(@NotNull TraversalMode traversalMode) {
+        return section.getKeys(traversalMode);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public byte getByte(@NotNull String path) {
+        return section.getByte(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public byte getByte(@NotNull String path, byte def) {
+        return section.getByte(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Byte> getByteList(@NotNull String path) {
+        return section.getByteList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public short getShort(@NotNull String path) {
+        return section.getShort(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public short getShort(@NotNull String path, short def) {
+        return section.getShort(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Short> getShortList(@NotNull String path) {
+        return section.getShortList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public int getInt(@NotNull String path) {
+        return section.getInt(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public int getInt(@NotNull String path, int def) {
+        return section.getInt(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Integer> getIntList(@NotNull String path) {
+        return section.getIntList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public long getLong(@NotNull String path) {
+        return section.getLong(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public long getLong(@NotNull String path, long def) {
+        return section.getLong(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Long> getLongList(@NotNull String path) {
+        return section.getLongList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public float getFloat(@NotNull String path) {
+        return section.getFloat(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public float getFloat(@NotNull String path, float def) {
+        return section.getFloat(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Float> getFloatList(@NotNull String path) {
+        return section.getFloatList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public double getDouble(@NotNull String path) {
+        return section.getDouble(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public double getDouble(@NotNull String path, double def) {
+        return section.getDouble(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Double> getDoubleList(@NotNull String path) {
+        return section.getDoubleList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public boolean getBoolean(@NotNull String path) {
+        return section.getBoolean(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public boolean getBoolean(@NotNull String path, boolean def) {
+        return section.getBoolean(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull Boolean> getBooleanList(@NotNull String path) {
+        return section.getBooleanList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull String getString(@NotNull String path) {
+        return section.getString(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @Nullable String getString(@NotNull String path, @Nullable String def) {
+        return section.getString(path, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull List<@NotNull String> getStringList(@NotNull String path) {
+        return section.getStringList(path);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public <T extends Enum<T>> @NotNull T getEnum(@NotNull String path, @NotNull Class<T> enumClass) {
+        return section.getEnum(path, enumClass);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public <T extends Enum<T>> @Nullable T getEnum(@NotNull String path, @NotNull Class<T> enumClass, @Nullable T def) {
+        return section.getEnum(path, enumClass, def);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 2.3.0
+     */
+    @Override
+    public @NotNull <T extends Enum<T>> List<@NotNull T> getEnumList(@NotNull String path, @NotNull Class<T> enumClass) {
+        return section.getEnumList(path, enumClass);
+    }
+
+
+    /**
+     * Returns the shard mapped to the given key, loading or creating it if needed.
+     *
+     * @param key the root level key of the shard.
+     * @return    the configuration which is stored in the file of the shard.
+     * @throws IllegalArgumentException if the key is not a valid file name.
+     * @since 2.3.0
+     */
+    public @NotNull Configuration getShard(@NotNull String key) {
+        return Objects.requireNonNull(getShard(key, true));
+    }
+
+
+    /**
+     * Returns the shards which are currently loaded.
+     *
+     * @return an unmodifiable view of the shards which are currently loaded, mapped by key.
+     * @since 2.3.0
+     */
+    public @NotNull Map<@NotNull String, @NotNull Configuration> getLoadedShards() {
+        return Collections.unmodifiableMap(shards);
+    }
+
+
+    /**
+     * Saves any loaded shard which was changed since it was last loaded or saved.
+     *
+     * @see Configuration#save()
+     * @since 2.3.0
+     */
+    public void save() {
+        for (Configuration shard : shards.values()) {
+            shard.save();
+        }
+    }
+
+
+    /**
+     * Saves and unloads the shard mapped to the given key, if loaded,
+     * so that it is loaded again from file the next time it is accessed.
+     * <p>
+     * The unloaded {@link Configuration} should not be used anymore after calling this method.
+     *
+     * @param key the root level key of the shard.
+     * @since 2.3.0
+     */
+    public void unload(@NotNull String key) {
+        // the shard is saved before it can be loaded again
+        List<Configuration> unloaded = new ArrayList<>(1);
+        shards.computeIfPresent(key, (k, shard) -> {
+            shard.save();
+            unloaded.add(shard);
+            return null;
+        });
+        for (Configuration shard : unloaded) {
+            // stops its background work and releases its journal
+            shard.close();
+        }
+    }
+
+
+    /**
+     * Stops compacting journals, then saves and unloads every loaded shard as described in {@link #unload(String)}.
+     * <p>
+     * This sharded configuration should not be used anymore after calling this method.
+     *
+     * @since 2.3.0
+     */
+    public void close() {
+        if (compaction != null) {
+            compaction.cancel(false);
+        }
+        for (String key : shards.keySet()) {
+            unload(key);
+        }
+    }
+
+
+    /**
+     * Returns the directory which contains the files of the shards.
+     *
+     * @return the directory of this sharded configuration.
+     * @since 2.3.0
+     */
+    public @NotNull File getDirectory() {
+        return directory;
+    }
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    // loads the given shard file, which is created if it does not exist
+    @FunctionalInterface
+    interface ShardLoader {
+
+        @NotNull Configuration load(@NotNull File file);
+
+    }
+
+    @Nullable Configuration getShard(@NotNull String key, boolean create) {
+        Configuration shard = shards.get(key);
+        if (shard != null) {
+            return shard;
+        }
+        File file = shardFile(key);
+        if (!create && !file.exists()) {
+            return null;
+        }
+
+        // shards are loaded outside the map, so that loading never blocks access to other shards
+        Configuration loaded = loader.load(file);
+        shard = shards.putIfAbsent(key, loaded);
+        if (shard == null) {
+            return loaded;
+        }
+        // the same shard was loaded by someone else in the meantime
+        loaded.close();
+        return shard;
+    }
+
+    // replaces the whole content of a shard, or deletes it if value is null
+    void replaceShard(@NotNull String key, @Nullable Object value) {
+        if (value == null) {
+            File file = shardFile(key);
+            shards.compute(key, (k, shard) -> {
+                try {
+                    // pending saves of the removed shard must not write it again
+                    if (shard != null) {
+                        shard.delete();
+                    }
+                    Files.deleteIfExists(file.toPath());
+                    Files.deleteIfExists(ConfigurationJournal.pathOf(file));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                return null;
+            });
+            return;
+        }
+
+        Map<?, ?> data;
+        if (value instanceof Map<?, ?> map) {
+            data = map;
+        } else if (value instanceof ConfigurationSection other) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            for (String subKey : other.getKeys(TraversalMode.ROOT)) {
+                copy.put(subKey, other.get(subKey));
+            }
+            data = copy;
+        } else {
+            throw new IllegalArgumentException("only sections can be mapped to root level keys of a sharded configuration");
+        }
+
+        Configuration shard = getShard(key, true);
+        shard.edit(tx -> {
+            for (String subKey : shard.getKeys(TraversalMode.ROOT)) {
+                if (!data.containsKey(subKey)) {
+                    tx.unset(subKey);
+                }
+            }
+            for (Map.Entry<?, ?> entry : data.entrySet()) {
+                tx.set(Objects.toString(entry.getKey()), entry.getValue());
+            }
+        });
+    }
+
+    private void compactJournals() {
+        for (Configuration shard : shards.values()) {
+            shard.compactJournal();
+        }
+    }
+
+    @NotNull Set<@NotNull String> getShardKeys() {
+        Set<String> keys = new TreeSet<>(shards.keySet());
+        String[] files = directory.list();
+        if (files != null) {
+            for (String name : files) {
+                if (name.endsWith(EXTENSION) && name.length() > EXTENSION.length()) {
+                    keys.add(name.substring(0, name.length() - EXTENSION.length()));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private @NotNull File shardFile(@NotNull String key) {
+        if (key.isEmpty() || key.startsWith(".") || key.indexOf('/') != -1 || key.indexOf('\\') != -1) {
+            throw new IllegalArgumentException("invalid shard key `" + key + "`");
+        }
+        return new File(directory, key + EXTENSION);
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+// the root of a sharded configuration, where each key is a shard and any sub path is delegated to it
+final class ShardedSection extends AbstractConfigurationSection {
+
+    private final ShardedConfiguration owner;
+
+    ShardedSection(@NotNull ShardedConfiguration owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public boolean contains(@NotNull String path) {
+        return get(path, null) != null;
+    }
+
+    @Override
+    public @NotNull Object get(@NotNull String path) {
+        Object ret = get(path, null);
+        if (ret == null) {
+            String message = NO_MAPPING_FOUND.apply(path);
+            throw new NullPointerException(message);
+        }
+        return ret;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(@NotNull String path, @Nullable T def) {
+        int index = path.indexOf(SEPARATOR);
+        Configuration shard = owner.getShard(index == -1 ? path : path.substring(0, index), false);
+        Object ret = shard == null || index == -1 ? shard : shard.get(path.substring(index + 1), null);
+        return ret == null ? def : (T) ret;
+    }
+
+    @Override
+    public @NotNull List<@Nullable Object> getList(@NotNull String path) {
+        int index = path.indexOf(SEPARATOR);
+        if (index == -1) {
+            // shards are always sections
+            get(path);
+            return Collections.emptyList();
+        }
+        Configuration shard = owner.getShard(path.substring(0, index), false);
+        if (shard == null) {
+            String message = NO_MAPPING_FOUND.apply(path);
+            throw new NullPointerException(message);
+        }
+        return shard.getList(path.substring(index + 1));
+    }
+
+    @Override
+    public void set(@NotNull String path, @Nullable Object value) {
+        int index = path.indexOf(SEPARATOR);
+        if (index == -1) {
+            owner.replaceShard(path, value);
+            return;
+        }
+        Configuration shard = owner.getShard(path.substring(0, index), value != null);
+        if (shard != null) {
+            shard.set(path.substring(index + 1), value);
+        }
+    }
+
+    @Override
+    public void unset(@NotNull String path) {
+        set(path, null);
+    }
+
+    @Override
+    public boolean compareAndSet(@NotNull String path, @Nullable Object expected, @Nullable Object value) {
+        int index = path.indexOf(SEPARATOR);
+        if (index == -1) {
+            throw new IllegalArgumentException("shard `" + path + "` cannot be compared and set as a whole");
+        }
+        Configuration shard = owner.getShard(path.substring(0, index), value != null);
+        if (shard == null) {
+            // the expected value can only be missing
+            return expected == null;
+        }
+        return shard.compareAndSet(path.substring(index + 1), expected, value);
+    }
+
+    @Override
+    <R> R updateList(@NotNull String path, boolean create, @NotNull Function<List<Object>, R> update) {
+        int index = path.indexOf(SEPARATOR);
+        Configuration shard = index == -1 ? null : owner.getShard(path.substring(0, index), create);
+        if (shard == null) {
+            // shards are always sections
+            return super.updateList(path, create, update);
+        }
+        return shard.getRootSection().updateList(path.substring(index + 1), create, update);
+    }
+
+    @Override
+    public @NotNull ConfigurationSection createSection(@NotNull String path) {
+        int index = path.indexOf(SEPARATOR);
+        if (index == -1) {
+            if (contains(path)) {
+                throw new IllegalArgumentException("path `" + path + "` already exists in this configuration section");
+            }
+            return Objects.requireNonNull(owner.getShard(path, true));
+        }
+        return Objects.requireNonNull(owner.getShard(path.substring(0, index), true)).createSection(path.substring(index + 1));
+    }
+
+    @Override
+    public @NotNull ConfigurationSection getOrCreateSection(@NotNull String path) {
+        int index = path.indexOf(SEPARATOR);
+        Configuration shard = Objects.requireNonNull(owner.getShard(index == -1 ? path : path.substring(0, index), true));
+        return index == -1 ? shard : shard.getOrCreateSection(path.substring(index + 1));
+    }
+
+    @Override
+    public @NotNull ConfigurationSection getSection(@NotNull String path) {
+        ConfigurationSection section = getSection(path, null);
+        if (section == null) {
+            String message = NO_MAPPING_FOUND.apply(path);
+            throw new NullPointerException(message);
+        }
+        return section;
+    }
+
+    @Override
+    public @Nullable ConfigurationSection getSection(@NotNull String path, @Nullable ConfigurationSection def) {
+        Object section = get(path, null);
+        if (section instanceof ConfigurationSection ret) {
+            return ret;
+        } else if (section != null) {
+            throw new ConfigurationTypeException(path, ConfigurationSection.class, section);
+        }
+        return def;
+    }
+
+    @Override
+    public @NotNull Set<@NotNull String> getKeys(@NotNull TraversalMode traversalMode) {
+        Set<String> accumulator = new LinkedHashSet<>();
+        for (String key : owner.getShardKeys()) {
+            if (traversalMode != TraversalMode.LEAVES) {
+                accumulator.add(key);
+            }
+            if (traversalMode != TraversalMode.ROOT) {
+                Configuration shard = owner.getShard(key, false);
+                if (shard != null) {
+                    for (String subKey : shard.getKeys(traversalMode)) {
+                        accumulator.add(key + SEPARATOR + subKey);
+                    }
+                }
+            }
+        }
+        return accumulator;
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * An enum that specifies how a {@link Configuration} file is synchronized
+ * with the underlying storage device when calling {@link Configuration#save() save}.
+ * <p>
+ * Regardless of the chosen policy, configurations are always written to a temporary
+ * file which then atomically replaces the original one, so that a crash while saving
+ * never leaves a corrupted or empty file behind.<br>
+ * Stronger policies trade save latency for durability in case of power loss or OS crash.
+ *
+ * @since 2.3.0
+ */
+public enum SyncPolicy {
+
+    /**
+     * Leave synchronization to the operating system (fastest).
+     *
+     * @since 2.3.0
+     */
+    NONE,
+
+    /**
+     * Force file contents to the storage device before replacing the original file.
+     *
+     * @since 2.3.0
+     */
+    DATA,
+
+    /**
+     * Force both file contents and metadata to the storage device before replacing
+     * the original file, then force the parent directory so that the replacement
+     * itself is durable (slowest).
+     *
+     * @since 2.3.0
+     */
+    DATA_AND_METADATA;
+
+
+    // ============================================
+    //                   INTERNAL
+    // ============================================
+
+    void force(@NotNull FileChannel channel) throws IOException {
+        if (this != NONE) {
+            channel.force(this == DATA_AND_METADATA);
+        }
+    }
+
+    void forceDirectory(@NotNull Path directory) {
+        if (this == DATA_AND_METADATA) {
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException ignored) {
+                // not every platform allows to synchronize directories
+            }
+        }
+    }
+
+}
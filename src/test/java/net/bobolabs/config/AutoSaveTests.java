@@ -26,15 +26,20 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static net.bobolabs.config.TestUtils.listOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AutoSaveTests {
 
@@ -340,4 +345,85 @@ class AutoSaveTests {
         assertEquals(EXPECTED_FILE_CONTENTS, saved);
     }
 
+    @Test
+    void delayedAutoSaveWorks() throws Exception {
+        File configFile = new File(directory.toFile(), FILE_NAME);
+
+        config = ConfigurationLoader
+                .fromFile(configFile)
+                .setDefaultResource(FILE_NAME)
+                .autoSave(true)
+                .saveDelay(200, 2000, TimeUnit.MILLISECONDS)
+                .load();
+
+        for (int i = 0; i < 500; i++) {
+            config.set("values.value" + i, i);
+        }
+
+        // changes are coalesced into a single background save
+        assertEquals("", Files.readString(configFile.toPath()));
+
+        // the save runs on the scheduler once no change happened for the delay, hence before later tasks
+        Scheduler.EXECUTOR.schedule(() -> { }, 400, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+
+        Configuration saved = ConfigurationLoader.fromFile(configFile).load();
+        assertTrue(saved.contains("values.value499"));
+        assertEquals(500, saved.getKeys(TraversalMode.LEAVES).size());
+    }
+
+    @Test
+    void autoSavesOutsideTheWriteLock() throws IOException {
+        AtomicReference<Configuration> loaded = new AtomicReference<>();
+        List<Boolean> locked = new ArrayList<>();
+        ConfigurationCodec gzip = ConfigurationCodec.gzip();
+
+        // records whether the saving thread still holds the write lock of the configuration
+        ConfigurationCodec codec = new ConfigurationCodec() {
+            @Override
+            public boolean isEncoded(byte[] header) {
+                return gzip.isEncoded(header);
+            }
+
+            @Override
+            public int getHeaderLength() {
+                return gzip.getHeaderLength();
+            }
+
+            @Override
+            public InputStream decode(InputStream in) throws IOException {
+                return gzip.decode(in);
+            }
+
+            @Override
+            public OutputStream encode(OutputStream out) throws IOException {
+                locked.add(loaded.get().writeLock().isHeldByCurrentThread());
+                return gzip.encode(out);
+            }
+        };
+
+        File configFile = new File(directory.toFile(), FILE_NAME);
+        config = ConfigurationLoader
+                .fromFile(configFile)
+                .setDefaultResource(FILE_NAME)
+                .autoSave(true)
+                .codec(codec)
+                .load();
+        loaded.set(config);
+
+        config.set("a", 1);
+        config.writeLock().lock();
+        try {
+            config.set("b", 2);
+            config.set("c", 3);
+            // saved only once the outermost hold is released
+            assertEquals(1, locked.size());
+        } finally {
+            config.writeLock().unlock();
+        }
+
+        assertEquals(listOf(false, false), locked);
+        Configuration saved = ConfigurationLoader.fromFile(configFile).load();
+        assertEquals(3, saved.getInt("c"));
+    }
+
 }
@@ -0,0 +1,108 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionTests {
+
+    @TempDir
+    Path directory;
+
+    private File file() {
+        return new File(directory.toFile(), "data.yml.gz");
+    }
+
+    private boolean isCompressed() throws IOException {
+        byte[] header = Files.readAllBytes(file().toPath());
+        return header.length >= 2 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B;
+    }
+
+    private String decompress() throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file().toPath()))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void savesAndDetectsCompressedFiles() throws IOException {
+        Files.createFile(file().toPath());
+        Configuration config = ConfigurationLoader.fromFile(file()).codec(ConfigurationCodec.gzip()).load();
+        config.set("a.b", 1);
+        config.set("c", List.of("x", "y"));
+        config.save();
+
+        assertTrue(isCompressed());
+        assertEquals("a:\n  b: 1\nc:\n- x\n- y\n", decompress());
+
+        // compression is detected and kept even if the codec is not set
+        Configuration reloaded = ConfigurationLoader.fromFile(file()).load();
+        assertEquals(1, reloaded.getInt("a.b"));
+        assertEquals(List.of("x", "y"), reloaded.getStringList("c"));
+        reloaded.set("a.b", 2);
+        reloaded.save();
+        assertTrue(isCompressed());
+        assertEquals("a:\n  b: 2\nc:\n- x\n- y\n", decompress());
+    }
+
+    @Test
+    void compressesPlainFilesOnSave() throws IOException {
+        Files.writeString(file().toPath(), "a: 1 # comment\n");
+        Configuration config = ConfigurationLoader.fromFile(file()).codec(ConfigurationCodec.gzip()).load();
+        assertEquals(1, config.getInt("a"));
+
+        config.save();
+        assertTrue(isCompressed());
+        assertEquals("a: 1\n", decompress());
+
+        // saving the same contents leaves the file untouched
+        byte[] content = Files.readAllBytes(file().toPath());
+        config.set("a", 1);
+        config.save();
+        assertArrayEquals(content, Files.readAllBytes(file().toPath()));
+    }
+
+    @Test
+    void reloadsCompressedFiles() throws IOException {
+        Files.createFile(file().toPath());
+        Configuration config = ConfigurationLoader.fromFile(file()).codec(ConfigurationCodec.gzip()).load();
+        config.set("a", "text");
+        config.save();
+
+        config.set("a", "other");
+        config.reload();
+        assertEquals("text", config.getString("a"));
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComputeTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    private Configuration load(String name) {
+        return ConfigurationLoader
+                .fromFile(new File(directory.toFile(), name))
+                .setDefaultResource(FILE_NAME)
+                .load();
+    }
+
+    @Test
+    void computesConcurrently() throws InterruptedException {
+        Configuration config = load("config.yml");
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    config.computeInt("stats.kills", kills -> kills + 1);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8000, config.getInt("stats.kills"));
+    }
+
+    @Test
+    void computesValues() {
+        Configuration config = load("config.yml");
+        List<String> changed = new ArrayList<>();
+        config.addListener(changed::add);
+
+        assertEquals(5, config.computeInt("a", value -> value + 5));
+        assertEquals("5!", config.compute("a", value -> value + "!"));
+        assertEquals("5!", config.getString("a"));
+        assertNull(config.compute("a", value -> null));
+        assertFalse(config.contains("a"));
+        assertEquals(List.of("a", "a", "a"), changed);
+
+        config.set("b", "text");
+        assertThrows(ConfigurationTypeException.class, () -> config.computeInt("b", value -> value + 1));
+        assertEquals("text", config.getString("b"));
+    }
+
+    @Test
+    void comparesAndSets() {
+        Configuration config = load("config.yml");
+
+        assertTrue(config.compareAndSet("a.b", null, 1));
+        assertFalse(config.compareAndSet("a.b", null, 2));
+        assertFalse(config.compareAndSet("a.b", 2, 3));
+        assertTrue(config.compareAndSet("a.b", 1, 3));
+        assertEquals(3, config.getInt("a.b"));
+        assertTrue(config.getSection("a").compareAndSet("b", 3, null));
+        assertFalse(config.contains("a.b"));
+    }
+
+    @Test
+    void comparesWithReadValues() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), "gui:\n  title: Custom\nkills: 1\nname: file\n");
+        Configuration config;
+        System.setProperty("compute.name", "override");
+        try {
+            config = ConfigurationLoader
+                    .fromFile(file)
+                    .setDefaultResource("fallback_config.yml")
+                    .defaultFallback(true)
+                    .systemOverrides("COMPUTE_BOBOCONFIG_", "compute.")
+                    .load();
+        } finally {
+            System.clearProperty("compute.name");
+        }
+
+        // default values are replaced
+        assertTrue(config.compareAndSet("gui.size", 27, 54));
+        assertEquals(54, config.getInt("gui.size"));
+
+        // pending updates of counters are discarded once the computed value is stored
+        config.counter("kills").add(2);
+        assertEquals(4, config.computeInt("kills", kills -> kills + 1));
+        assertEquals(4, config.counter("kills").get());
+
+        // system overrides still take precedence over the stored value
+        assertFalse(config.compareAndSet("name", "file", "changed"));
+        assertTrue(config.compareAndSet("name", "override", "changed"));
+        assertEquals("override", config.getString("name"));
+        config.save();
+        assertEquals("gui:\n  title: Custom\n  size: 54\nkills: 4\nname: changed\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void computesLayeredValues() {
+        Configuration base = load("base.yml");
+        Configuration top = load("top.yml");
+        base.set("slots", 100);
+
+        LayeredConfiguration layered = LayeredConfiguration.of(base, top);
+        assertEquals(110, layered.computeInt("slots", slots -> slots + 10));
+        assertEquals(100, base.getInt("slots"));
+        assertEquals(110, top.getInt("slots"));
+        assertFalse(layered.compareAndSet("slots", 100, 0));
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurationEmitterTests {
+
+    @TempDir
+    Path directory;
+
+    private static String emit(Map<String, Object> data) throws IOException {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        StringWriter writer = new StringWriter();
+        new ConfigurationEmitter(new ConfigurationRepresenter(options), options).emit(data, writer);
+        return writer.toString();
+    }
+
+    private static String dump(Map<String, Object> data) {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        return new Yaml(new ConfigurationRepresenter(options), options).dump(data);
+    }
+
+    @Test
+    void matchesYamlDump() throws IOException {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("plain", "text");
+        nested.put("quoted", "yes");
+        nested.put("number-like", "123");
+        nested.put("special", "a: b # c");
+        nested.put("multiline", "first\nsecond\n");
+        nested.put("unicode", "\u00e0\u00e8\u00ec \u2603");
+        nested.put("long", "word ".repeat(40));
+        nested.put("empty", "");
+        nested.put("null", null);
+
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("x", 1);
+        item.put("y", new ArrayList<>());
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("nested", nested);
+        data.put("int", 42);
+        data.put("long", Long.MAX_VALUE);
+        data.put("big", BigInteger.TEN.pow(30));
+        data.put("double", 1.5);
+        data.put("nan", Double.NaN);
+        data.put("infinity", Float.NEGATIVE_INFINITY);
+        data.put("boolean", true);
+        data.put("list", Arrays.asList(1, "two", null, List.of(3, 4), item, new LinkedHashMap<>()));
+        data.put("empty-list", new ArrayList<>());
+        data.put("empty-map", new LinkedHashMap<>());
+        data.put(" spaced key ", "value");
+        data.put("set", new LinkedHashSet<>(List.of("a", "b")));
+
+        assertEquals(dump(data), emit(data));
+    }
+
+    @Test
+    void detectsSharedCollections() {
+        List<Object> shared = List.of(1, 2);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("a", shared);
+        assertFalse(ConfigurationEmitter.hasSharedCollections(data));
+        data.put("b", Map.of("c", shared));
+        assertTrue(ConfigurationEmitter.hasSharedCollections(data));
+    }
+
+    @Test
+    void savesSharedCollections() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), "a: &list\n- 1\n- 2\nb: *list\n");
+
+        Configuration config = ConfigurationLoader.fromFile(file).load();
+        config.set("c", 3);
+        config.save();
+
+        assertEquals("a: &id001\n- 1\n- 2\nb: *id001\nc: 3\n", Files.readString(file.toPath()));
+    }
+
+}
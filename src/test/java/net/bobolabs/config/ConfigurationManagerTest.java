@@ -25,7 +25,11 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -49,6 +53,10 @@ class ConfigurationManagerTest {
         assertEquals("default.yml", config.defaultResource());
         assertTrue(config.saveDefaultResource());
         assertFalse(config.autoSave());
+        assertFalse(config.compressed());
+        assertEquals(0, config.saveDelay());
+        assertEquals(SyncPolicy.NONE, config.syncPolicy());
+        assertFalse(config.defaultFallback());
     }
 
     @Test
@@ -78,6 +86,80 @@ class ConfigurationManagerTest {
         assertTrue(config.autoSave());
     }
 
+    @Test
+    void testSaveDelay() {
+        Config config = manager.makeConfig(TestConfigs.SAVE_DELAY);
+        assertTrue(config.autoSave());
+        assertEquals(100, config.saveDelay());
+        assertEquals(1000, config.maxSaveDelay());
+    }
+
+    @Test
+    void testDefaultFallback() {
+        Config config = manager.makeConfig(TestConfigs.DEFAULT_FALLBACK);
+        assertEquals("default_fallback.yml", config.path());
+        assertTrue(config.saveDefaultResource());
+        assertFalse(config.autoSave());
+        assertTrue(config.defaultFallback());
+    }
+
+    @Test
+    void testGroupCommit() throws IOException, InterruptedException {
+        File groupDirectory = directory.resolve("group").toFile();
+        ConfigurationManager<FlushConfigs> group = new ConfigurationManager<>(groupDirectory, FlushConfigs.class, 1, TimeUnit.HOURS);
+        group.loadAll();
+
+        group.get(FlushConfigs.FIRST).set("a", 1);
+        group.get(FlushConfigs.SECOND).set("b", 2);
+        assertEquals("", Files.readString(new File(groupDirectory, "first.yml").toPath()).trim());
+
+        group.flushAll();
+        group.awaitFlush();
+        assertEquals("a: 1\n", Files.readString(new File(groupDirectory, "first.yml").toPath()));
+        assertEquals("b: 2\n", Files.readString(new File(groupDirectory, "second.yml").toPath()));
+    }
+
+    @Test
+    void testPeriodicFlush() throws Exception {
+        File groupDirectory = directory.resolve("periodic").toFile();
+        ConfigurationManager<FlushConfigs> group = new ConfigurationManager<>(groupDirectory, FlushConfigs.class, 50, TimeUnit.MILLISECONDS);
+        group.load(FlushConfigs.FIRST).set("a", 1);
+
+        File file = new File(groupDirectory, "first.yml");
+        // a periodic flush is started on the scheduler before later tasks, then awaited
+        Scheduler.EXECUTOR.schedule(() -> { }, 100, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+        group.awaitFlush();
+        assertEquals("a: 1\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void testUnloadFlushes() throws IOException {
+        File groupDirectory = directory.resolve("unload").toFile();
+        ConfigurationManager<FlushConfigs> group = new ConfigurationManager<>(groupDirectory, FlushConfigs.class, 1, TimeUnit.HOURS);
+        group.loadAll();
+
+        group.get(FlushConfigs.FIRST).set("a", 1);
+        group.get(FlushConfigs.SECOND).set("b", 2);
+        assertTrue(group.unload(FlushConfigs.FIRST, 5, TimeUnit.SECONDS));
+        assertEquals("a: 1\n", Files.readString(new File(groupDirectory, "first.yml").toPath()));
+        assertEquals("", Files.readString(new File(groupDirectory, "second.yml").toPath()).trim());
+
+        assertTrue(group.unloadAll(5, TimeUnit.SECONDS));
+        assertEquals("b: 2\n", Files.readString(new File(groupDirectory, "second.yml").toPath()));
+        assertTrue(group.getOptional(FlushConfigs.SECOND).isEmpty());
+    }
+
+
+    enum FlushConfigs implements ConfigurationDescription {
+
+        @Config(autoSave = true, defaultResource = "empty_config.yml")
+        FIRST,
+
+        @Config(autoSave = true, defaultResource = "empty_config.yml")
+        SECOND
+
+    }
+
 
     enum TestConfigs implements ConfigurationDescription {
 
@@ -93,7 +175,13 @@ class ConfigurationManagerTest {
         SAVE_DEFAULT_RESOURCE,
 
         @Config(autoSave = true)
-        AUTO_SAVE
+        AUTO_SAVE,
+
+        @Config(autoSave = true, saveDelay = 100)
+        SAVE_DELAY,
+
+        @Config(defaultFallback = true)
+        DEFAULT_FALLBACK
 
     }
 
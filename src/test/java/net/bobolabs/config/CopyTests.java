@@ -0,0 +1,147 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CopyTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    private File file() {
+        return new File(directory.toFile(), "config.yml");
+    }
+
+    private Configuration load() {
+        return ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .load();
+    }
+
+    @Test
+    void copiesSections() throws IOException {
+        Configuration config = load();
+        config.set("kits.default.items", List.of("sword"));
+        config.set("kits.default.cost.coins", 10);
+
+        config.copySection("kits.default", "arena.kit");
+        assertEquals(List.of("sword"), config.getStringList("arena.kit.items"));
+        assertEquals(10, config.getInt("arena.kit.cost.coins"));
+
+        config.appendToList("arena.kit.items", "bow");
+        config.set("kits.default.cost.coins", 20);
+        assertEquals(List.of("sword"), config.getStringList("kits.default.items"));
+        assertEquals(List.of("sword", "bow"), config.getStringList("arena.kit.items"));
+        assertEquals(10, config.getInt("arena.kit.cost.coins"));
+
+        config.copySection("kits", "kits.backup");
+        assertEquals(20, config.getInt("kits.backup.default.cost.coins"));
+        assertFalse(config.contains("kits.backup.backup"));
+
+        config.save();
+        assertEquals("""
+                kits:
+                  default:
+                    items:
+                    - sword
+                    cost:
+                      coins: 20
+                  backup:
+                    default:
+                      items:
+                      - sword
+                      cost:
+                        coins: 20
+                arena:
+                  kit:
+                    items:
+                    - sword
+                    - bow
+                    cost:
+                      coins: 10
+                """, Files.readString(file().toPath()));
+    }
+
+    @Test
+    void sharesUnchangedSections() {
+        Configuration config = load();
+        Map<String, Object> template = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            for (int j = 0; j < 100; j++) {
+                node.put("v" + j, j);
+            }
+            template.put("n" + i, node);
+        }
+        config.set("template", template);
+
+        config.copySection("template", "copy");
+        ConfigurationSectionImpl original = (ConfigurationSectionImpl) config.getSection("template");
+        ConfigurationSectionImpl copy = (ConfigurationSectionImpl) config.getSection("copy");
+
+        config.readLock().lock();
+        try {
+            assertSame(original.snapshot(), copy.snapshot());
+        } finally {
+            config.readLock().unlock();
+        }
+
+        config.set("copy.n0.v0", -1);
+        assertEquals(0, config.getInt("template.n0.v0"));
+        assertEquals(-1, config.getInt("copy.n0.v0"));
+        assertEquals(99, config.getInt("copy.n99.v99"));
+
+        config.readLock().lock();
+        try {
+            assertNotSame(original.snapshot(), copy.snapshot());
+            assertSame(original.snapshot().get("n1"), copy.snapshot().get("n1"));
+        } finally {
+            config.readLock().unlock();
+        }
+    }
+
+    @Test
+    void rejectsInvalidSources() {
+        Configuration config = load();
+        config.set("value", 1);
+
+        assertThrows(NullPointerException.class, () -> config.copySection("missing", "copy"));
+        assertThrows(ConfigurationTypeException.class, () -> config.copySection("value", "copy"));
+        assertFalse(config.contains("copy"));
+    }
+
+}
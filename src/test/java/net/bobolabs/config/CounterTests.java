@@ -0,0 +1,139 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CounterTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    private File file() {
+        return new File(directory.toFile(), "config.yml");
+    }
+
+    private Configuration load() {
+        return ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .load();
+    }
+
+    @Test
+    void countsConcurrently() throws Exception {
+        Configuration config = load();
+        ConfigurationCounter kills = config.counter("stats.kills");
+        assertSame(kills, config.counter("stats.kills"));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    kills.increment();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80000, kills.get());
+        assertEquals(80000, config.getInt("stats.kills"));
+        assertEquals(80000, config.snapshot().getInt("stats.kills"));
+
+        config.save();
+        assertEquals("stats:\n  kills: 80000\n", Files.readString(file().toPath()));
+        assertEquals(80000, load().getInt("stats.kills"));
+    }
+
+    @Test
+    void foldsIntoStoredValue() throws IOException {
+        Configuration config = load();
+        config.set("votes", 10);
+
+        ConfigurationCounter votes = config.counter("votes");
+        votes.add(5);
+        votes.decrement();
+        assertEquals(14, votes.get());
+        assertEquals(14, config.snapshot().getInt("votes"));
+
+        config.save();
+        assertEquals("votes: 14\n", Files.readString(file().toPath()));
+        assertEquals(14, votes.get());
+    }
+
+    @Test
+    void setDiscardsPendingUpdates() {
+        Configuration config = load();
+        ConfigurationCounter mined = config.counter("stats.mined");
+        mined.add(100);
+
+        config.set("stats.mined", 1);
+        assertEquals(1, mined.get());
+        mined.increment();
+        config.unset("stats");
+        assertEquals(0, mined.get());
+        assertFalse(config.contains("stats.mined"));
+
+        config.set("stats.mined", "none");
+        assertThrows(ConfigurationTypeException.class, mined::get);
+    }
+
+    @Test
+    void keepsCountingOnceFolded() {
+        Configuration config = load();
+        ConfigurationCounter coins = config.counter("players.alice.coins");
+        coins.add(10);
+        config.snapshot();
+
+        // counters folded into the configuration keep counting, also alongside newer ones
+        coins.add(5);
+        ConfigurationCounter other = config.counter("players.alice.coins");
+        other.add(1);
+        coins.add(1);
+        assertEquals(17, coins.get());
+        assertEquals(17, other.get());
+        assertEquals(17, config.snapshot().getInt("players.alice.coins"));
+
+        config.unset("players.alice");
+        coins.increment();
+        assertEquals(1, other.get());
+        assertEquals(1, config.getInt("players.alice.coins"));
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultFallbackTests {
+
+    static final String RESOURCE_NAME = "fallback_config.yml";
+
+    @TempDir
+    Path directory;
+
+    File file;
+
+    Configuration config;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), "gui:\n  title: Custom\n");
+
+        config = ConfigurationLoader
+                .fromFile(file)
+                .setDefaultResource(RESOURCE_NAME)
+                .defaultFallback(true)
+                .load();
+    }
+
+    @Test
+    void fallsBackToDefaultResource() {
+        assertEquals("Custom", config.getString("gui.title"));
+        assertEquals(27, config.getInt("gui.size"));
+        assertEquals(27, config.getSection("gui").getInt("size"));
+        assertEquals(List.of("hello", "world"), config.getStringList("messages"));
+        assertTrue(config.contains("messages"));
+        assertFalse(config.contains("non.existing.key"));
+    }
+
+    @Test
+    void keysOnlyReflectFile() {
+        assertEquals(Set.of("gui", "gui.title"), config.getKeys(TraversalMode.ALL));
+    }
+
+    @Test
+    void fileValuesWin() {
+        config.set("gui.size", 54);
+        assertEquals(54, config.getInt("gui.size"));
+
+        config.unset("gui.size");
+        assertEquals(27, config.getInt("gui.size"));
+    }
+
+    @Test
+    void fallbackSectionsAreReadOnly() throws IOException {
+        Files.writeString(file.toPath(), "");
+        config.reload();
+
+        ConfigurationSection gui = config.getSection("gui");
+        assertEquals("Menu", gui.getString("title"));
+        assertThrows(UnsupportedOperationException.class, () -> gui.set("title", "Other"));
+
+        ConfigurationSection created = config.getOrCreateSection("gui");
+        created.set("title", "Other");
+        assertEquals("Other", config.getString("gui.title"));
+        assertEquals(27, created.getInt("size"));
+    }
+
+    @Test
+    void fallbackValuesAreNotSaved() {
+        config.save();
+        Configuration reloaded = ConfigurationLoader.fromFile(file).load();
+        assertFalse(reloaded.contains("gui.size"));
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EditTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    private File file() {
+        return new File(directory.toFile(), "config.yml");
+    }
+
+    @Test
+    void appliesAllChanges() throws IOException {
+        Configuration config = ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .autoSave(true)
+                .load();
+        config.set("c", "old");
+
+        List<String> changed = new ArrayList<>();
+        config.addListener(changed::add);
+
+        config.edit(tx -> {
+            tx.set("a.b", 1);
+            tx.set("a", Map.of("b", 2));
+            tx.set("b", List.of(1, 2));
+            tx.unset("c");
+            tx.set("d", "same");
+            tx.set("d", null);
+
+            // staged changes are not visible yet
+            assertEquals("old", config.getString("c"));
+        });
+
+        assertEquals(2, config.getInt("a.b"));
+        assertEquals(List.of(1, 2), config.getIntList("b"));
+        assertFalse(config.contains("c"));
+        assertFalse(config.contains("d"));
+        assertEquals(List.of("a", "b", "c", "d"), changed);
+        assertEquals("a:\n  b: 2\nb:\n- 1\n- 2\n", Files.readString(file().toPath()));
+    }
+
+    @Test
+    void abortDiscardsChanges() {
+        Configuration config = ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .load();
+
+        config.edit(tx -> {
+            tx.set("a", 1);
+            tx.abort();
+            tx.set("b", 2);
+            assertTrue(tx.isAborted());
+        });
+        assertThrows(IllegalStateException.class, () -> config.edit(tx -> {
+            tx.set("a", 1);
+            throw new IllegalStateException();
+        }));
+
+        assertFalse(config.contains("a"));
+        assertFalse(config.contains("b"));
+    }
+
+    @Test
+    void failingChangeDiscardsBatch() throws IOException {
+        Configuration config = ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .load();
+        config.set("a", 1);
+        config.save();
+
+        assertThrows(ClassCastException.class, () -> config.edit(tx -> {
+            tx.set("b", 2);
+            tx.set("a.c", 3);
+        }));
+        assertFalse(config.contains("b"));
+        assertFalse(config.snapshot().contains("b"));
+        assertEquals(1, config.getInt("a"));
+
+        // the tree is still consistent with the file
+        config.set("d", 4);
+        config.save();
+        assertEquals("a: 1\nd: 4\n", Files.readString(file().toPath()));
+    }
+
+    @Test
+    void journalsChangesAtOnce() throws IOException {
+        Configuration config = ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .journal(true)
+                .load();
+
+        config.edit(tx -> {
+            tx.set("a.b", 1);
+            tx.set("a.c", 2);
+            tx.set("d", "e");
+        });
+        assertEquals(1, Files.readAllLines(new File(directory.toFile(), "config.yml.journal").toPath()).size());
+
+        Configuration reloaded = ConfigurationLoader.fromFile(file()).journal(true).load();
+        assertEquals(1, reloaded.getInt("a.b"));
+        assertEquals(2, reloaded.getInt("a.c"));
+        assertEquals("e", reloaded.getString("d"));
+    }
+
+    @Test
+    void appliesAsyncChangesInOrder() throws Exception {
+        Configuration config = ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .load();
+
+        List<Thread> threads = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int thread = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    futures.add(config.setAsync("t" + thread + ".v", j));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals(99, config.getInt("t" + i + ".v"));
+        }
+        config.editAsync(tx -> tx.unset("t0")).get(10, TimeUnit.SECONDS);
+        assertFalse(config.contains("t0"));
+    }
+
+    @Test
+    void failsOnlyInvalidAsyncChanges() throws Exception {
+        Configuration config = ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .load();
+        config.set("a", 1);
+
+        CompletableFuture<Void> invalid = config.setAsync("a.b", 2);
+        CompletableFuture<Void> valid = config.setAsync("c", 3);
+        valid.get(10, TimeUnit.SECONDS);
+
+        assertTrue(invalid.isCompletedExceptionally());
+        assertEquals(1, config.getInt("a"));
+        assertEquals(3, config.getInt("c"));
+
+        CompletableFuture<Void> partial = config.editAsync(tx -> {
+            tx.set("d", 4);
+            tx.set("a.e", 5);
+        });
+        config.setAsync("f", 6).get(10, TimeUnit.SECONDS);
+        assertTrue(partial.isCompletedExceptionally());
+        assertFalse(config.contains("d"));
+        assertFalse(config.snapshot().contains("d"));
+        assertEquals(6, config.getInt("f"));
+    }
+
+    @Test
+    void publishesSnapshots() throws Exception {
+        Configuration config = ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .load();
+        config.set("a.b", 1);
+
+        ConfigurationSection snapshot = config.snapshot();
+        assertSame(snapshot, config.snapshot());
+        assertEquals(1, snapshot.getInt("a.b"));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.set("a.b", 2));
+
+        config.setAsync("a.b", 2).get(10, TimeUnit.SECONDS);
+        assertEquals(1, snapshot.getInt("a.b"));
+        assertEquals(2, config.snapshot().getInt("a.b"));
+        assertEquals(2, config.snapshot().getSection("a").getInt("b"));
+    }
+
+}
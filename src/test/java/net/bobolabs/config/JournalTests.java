@@ -0,0 +1,153 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    private File file() {
+        return new File(directory.toFile(), "config.yml");
+    }
+
+    private File journal() {
+        return new File(directory.toFile(), "config.yml.journal");
+    }
+
+    private Configuration load() {
+        return ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .journal(true)
+                .load();
+    }
+
+    @Test
+    void appendsInsteadOfSaving() throws IOException {
+        Configuration config = load();
+        String source = Files.readString(file().toPath());
+
+        config.set("a.b", 1);
+        config.set("c", List.of("x", "y"));
+        config.unset("a.b");
+
+        assertEquals(source, Files.readString(file().toPath()));
+        assertEquals(3, Files.readAllLines(journal().toPath()).size());
+    }
+
+    @Test
+    void replaysOnLoad() throws IOException {
+        Configuration config = load();
+        config.set("a.b", 1);
+        config.set("a.c", "text");
+        config.set("d", List.of(1, 2));
+        config.unset("a.c");
+
+        Files.writeString(journal().toPath(), "--- [a.e, 1", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        Configuration reloaded = load();
+        assertEquals(1, reloaded.getInt("a.b"));
+        assertFalse(reloaded.contains("a.c"));
+        assertFalse(reloaded.contains("a.e"));
+        assertEquals(List.of(1, 2), reloaded.getIntList("d"));
+
+        // replayed changes are folded into the file and the journal is emptied
+        assertEquals(0, journal().length());
+        assertEquals("a:\n  b: 1\nd:\n- 1\n- 2\n", Files.readString(file().toPath()));
+    }
+
+    @Test
+    void skipsCorruptRecords() throws IOException {
+        Configuration config = load();
+        config.set("a", 1);
+        Files.writeString(journal().toPath(), "--- [b, {\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        config.set("c", 2);
+
+        // records following the corrupt one are replayed before the journal is emptied
+        Configuration reloaded = load();
+        assertEquals(1, reloaded.getInt("a"));
+        assertFalse(reloaded.contains("b"));
+        assertEquals(2, reloaded.getInt("c"));
+        assertEquals(0, journal().length());
+        assertEquals("a: 1\nc: 2\n", Files.readString(file().toPath()));
+    }
+
+    @Test
+    void saveTruncatesJournal() throws IOException {
+        Configuration config = load();
+        config.set("a", "b");
+        assertTrue(Files.size(journal().toPath()) > 0);
+
+        config.save();
+        assertEquals(0, journal().length());
+        assertEquals("a: b\n", Files.readString(file().toPath()));
+
+        config.set("a", "c");
+        assertEquals("c", load().getString("a"));
+    }
+
+    @Test
+    void keepsRecordsAppendedWhileSaving() throws IOException {
+        Configuration config = load();
+        ConfigurationJournal journal = new ConfigurationJournal(file(), SyncPolicy.NONE);
+        journal.append(Map.of("a", 1));
+        long first = journal.position();
+        journal.append(Map.of("b", 2));
+        long second = journal.position();
+        journal.append(Map.of("c", 3));
+
+        // positions survive previous truncations
+        journal.truncate(first);
+        journal.truncate(second);
+        journal.truncate(first);
+        assertEquals(1, Files.readAllLines(journal().toPath()).size());
+
+        journal.append(Map.of("d", 4));
+        Set<String> replayed = new HashSet<>();
+        assertEquals(2, journal.replay(config.getRootSection(), replayed));
+        assertEquals(Set.of("c", "d"), replayed);
+        assertFalse(config.contains("a"));
+        assertFalse(config.contains("b"));
+        assertEquals(3, config.getInt("c"));
+        assertEquals(4, config.getInt("d"));
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayeredConfigurationTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    Configuration base;
+    Configuration override;
+    LayeredConfiguration layered;
+
+    @BeforeEach
+    void beforeEach() {
+        base = ConfigurationLoader
+                .fromFile(directory.toFile(), "base.yml")
+                .setDefaultResource(FILE_NAME)
+                .load();
+        override = ConfigurationLoader
+                .fromFile(directory.toFile(), "override.yml")
+                .setDefaultResource(FILE_NAME)
+                .load();
+
+        base.set("server.name", "network");
+        base.set("server.slots", 100);
+        base.set("motd", List.of("hello", "world"));
+        override.set("server.name", "lobby");
+
+        layered = LayeredConfiguration.of(base, override);
+    }
+
+    @Test
+    void resolvesUpperLayersFirst() {
+        assertEquals("lobby", layered.getString("server.name"));
+        assertEquals(100, layered.getInt("server.slots"));
+        assertEquals(List.of("hello", "world"), layered.getStringList("motd"));
+        assertEquals(Set.of("server", "server.name", "server.slots", "motd"), layered.getKeys(TraversalMode.ALL));
+    }
+
+    @Test
+    void sectionsAreMerged() {
+        ConfigurationSection server = layered.getSection("server");
+        assertEquals("lobby", server.getString("name"));
+        assertEquals(100, server.getInt("slots"));
+        assertEquals(Set.of("name", "slots"), server.getKeys(TraversalMode.ROOT));
+    }
+
+    @Test
+    void leavesShadowLowerSections() {
+        override.set("server", "disabled");
+        assertEquals("disabled", layered.getString("server"));
+        assertFalse(layered.contains("server.slots"));
+        assertThrows(ConfigurationTypeException.class, () -> layered.getSection("server"));
+    }
+
+    @Test
+    void tracksLayerChanges() {
+        base.set("server.slots", 50);
+        override.unset("server.name");
+        base.set("new.value", true);
+
+        assertEquals("network", layered.getString("server.name"));
+        assertEquals(50, layered.getInt("server.slots"));
+        assertTrue(layered.getBoolean("new.value"));
+    }
+
+    @Test
+    void tracksReloads() {
+        override.reload();
+        assertEquals("network", layered.getString("server.name"));
+    }
+
+    @Test
+    void writesToTopLayer() {
+        layered.set("server.slots", 20);
+        assertEquals(20, override.getInt("server.slots"));
+        assertEquals(100, base.getInt("server.slots"));
+        assertEquals(20, layered.getInt("server.slots"));
+
+        ConfigurationSection section = layered.createSection("other");
+        section.set("value", 1);
+        assertEquals(1, override.getInt("other.value"));
+        assertEquals(1, layered.getInt("other.value"));
+        assertThrows(IllegalArgumentException.class, () -> layered.createSection("server.slots"));
+    }
+
+    @Test
+    void stopsTrackingWhenClosed() {
+        layered.close();
+        base.set("server.players", 50);
+        assertFalse(layered.contains("server.players"));
+    }
+
+    @Test
+    void readsThroughLayers() {
+        ConfigurationCounter slots = base.counter("server.slots");
+        slots.add(5);
+        assertEquals(105, layered.getInt("server.slots"));
+        assertEquals(105, layered.getSection("server").getInt("slots"));
+
+        // resolved values are cached until the counter is updated again
+        slots.increment();
+        assertEquals(106, layered.getInt("server.slots"));
+    }
+
+    @Test
+    void keysMatchReadableValues() throws IOException {
+        File file = new File(directory.toFile(), "fallback.yml");
+        Files.writeString(file.toPath(), "gui:\n  title: Shop\n");
+
+        Configuration fallback;
+        System.setProperty("layered.extra.value", "5");
+        try {
+            fallback = ConfigurationLoader
+                    .fromFile(file)
+                    .setDefaultResource("fallback_config.yml")
+                    .defaultFallback(true)
+                    .systemOverrides("LAYERED_BOBOCONFIG_", "layered.")
+                    .load();
+        } finally {
+            System.clearProperty("layered.extra.value");
+        }
+        fallback.counter("hits").add(3);
+
+        // keys only found in default values, system overrides or counters are still readable from the layer
+        LayeredConfiguration view = LayeredConfiguration.of(base, fallback);
+        assertEquals("Shop", view.getString("gui.title"));
+        assertEquals(27, view.getInt("gui.size"));
+        assertEquals(List.of("hello", "world"), view.getStringList("messages"));
+        assertEquals(5, view.getInt("extra.value"));
+        assertEquals(3, view.getInt("hits"));
+
+        Set<String> keys = view.getKeys(TraversalMode.ALL);
+        for (String key : List.of("gui", "gui.title", "gui.size", "messages", "extra", "extra.value", "hits")) {
+            assertTrue(keys.contains(key), key);
+            assertTrue(view.contains(key), key);
+        }
+        assertEquals(Set.of("title", "size"), view.getSection("gui").getKeys(TraversalMode.ROOT));
+    }
+
+}
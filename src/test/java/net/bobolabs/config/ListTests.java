@@ -0,0 +1,148 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    private Configuration load(String name) {
+        return ConfigurationLoader
+                .fromFile(new File(directory.toFile(), name))
+                .setDefaultResource(FILE_NAME)
+                .load();
+    }
+
+    @Test
+    void changesListElements() throws IOException {
+        Configuration config = load("config.yml");
+        List<String> changed = new ArrayList<>();
+        config.addListener(changed::add);
+
+        config.appendToList("a.list", 1);
+        config.appendToList("a.list", TestEnum.TEST_1);
+        config.appendToList("a.list", (byte) 3);
+        config.insertListElement("a.list", 0, 0);
+        assertEquals(1, config.setListElement("a.list", 1, "one"));
+        assertEquals("TEST_1", config.removeListElement("a.list", 2));
+
+        assertEquals(List.of(0, "one", 3), config.getList("a.list"));
+        assertEquals(List.of("a.list", "a.list", "a.list", "a.list", "a.list", "a.list"), changed);
+
+        config.save();
+        assertEquals("a:\n  list:\n  - 0\n  - one\n  - 3\n", Files.readString(new File(directory.toFile(), "config.yml").toPath()));
+    }
+
+    @Test
+    void keepsSharedListsUnchanged() {
+        Configuration config = load("config.yml");
+        config.set("list", List.of(1, 2));
+
+        Object list = config.get("list");
+        ConfigurationSection snapshot = config.snapshot();
+        config.appendToList("list", 3);
+        Object appended = config.get("list");
+        config.appendToList("list", 4);
+
+        assertEquals(List.of(1, 2), list);
+        assertEquals(List.of(1, 2), snapshot.getList("list"));
+        assertEquals(List.of(1, 2, 3), appended);
+        assertEquals(List.of(1, 2, 3, 4), config.getList("list"));
+    }
+
+    @Test
+    void keepsCopiedListsUnchanged() {
+        Configuration config = load("config.yml");
+        config.appendToList("kit.items", "sword");
+        config.copySection("kit", "copy");
+        config.appendToList("kit.items", "bow");
+        config.setListElement("kit.items", 0, "axe");
+        config.appendToList("copy.items", "shield");
+
+        assertEquals(List.of("axe", "bow"), config.getList("kit.items"));
+        assertEquals(List.of("sword", "shield"), config.getList("copy.items"));
+    }
+
+    @Test
+    void storesDefaultListsOnlyOnceChanged() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), "gui:\n  title: Custom\n");
+        Configuration config = ConfigurationLoader
+                .fromFile(file)
+                .setDefaultResource("fallback_config.yml")
+                .defaultFallback(true)
+                .load();
+        List<String> changed = new ArrayList<>();
+        config.addListener(changed::add);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> config.setListElement("messages", 2, "!"));
+        assertEquals(Set.of("gui", "gui.title"), config.getKeys(TraversalMode.ALL));
+        assertTrue(changed.isEmpty());
+
+        config.setListElement("messages", 1, "there");
+        assertEquals(List.of("hello", "there"), config.getList("messages"));
+        assertEquals(List.of("messages"), changed);
+    }
+
+    @Test
+    void rejectsInvalidChanges() {
+        Configuration config = load("config.yml");
+        config.set("text", "value");
+        config.set("list", List.of(1));
+
+        assertThrows(ConfigurationTypeException.class, () -> config.appendToList("text", 1));
+        assertThrows(NullPointerException.class, () -> config.insertListElement("missing", 0, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> config.setListElement("list", 1, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> config.removeListElement("list", -1));
+        assertEquals(List.of(1), config.getList("list"));
+    }
+
+    @Test
+    void appendsToLayeredLists() {
+        Configuration base = load("base.yml");
+        Configuration top = load("top.yml");
+        base.set("motd", List.of("hello"));
+
+        LayeredConfiguration layered = LayeredConfiguration.of(base, top);
+        layered.appendToList("motd", "world");
+
+        assertEquals(List.of("hello"), base.getList("motd"));
+        assertEquals(List.of("hello", "world"), top.getList("motd"));
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadTests {
+
+    @TempDir
+    Path directory;
+
+    private void assertLoadedAsYaml(String text) throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), text);
+        Configuration config = ConfigurationLoader.fromFile(file).load();
+
+        Map<?, ?> expected = new Yaml().load(text);
+        Map<String, Object> expectedSection = expected != null ? AbstractConfigurationSection.toMap(new ConfigurationSectionImpl(config, null, "", expected)) : Map.of();
+        Map<String, Object> actual = AbstractConfigurationSection.toMap(config);
+        assertEquals(expectedSection, actual);
+        // same order as well
+        assertEquals(expectedSection.toString(), actual.toString());
+    }
+
+    @Test
+    void loadsLikeYaml() throws IOException {
+        assertLoadedAsYaml("""
+                # comment
+                int: 1
+                hex: 0x1F
+                long: 12345678901234
+                float: 1.5e3
+                bool: yes
+                off: off
+                empty:
+                null: ~
+                quoted: '1'
+                date: 2023-05-22
+                time: 2001-12-14t21:59:43.10-05:00
+                text: |
+                  multi
+                  line
+                section:
+                  nested:
+                    deep: [ 1, "two", 3.0 ]
+                  list:
+                  - a: 1
+                    1: b
+                    a: 2
+                  - [ x, { y: z } ]
+                flow: { a: 1, b: [ ] }
+                untagged: ! 12
+                duplicate: 1
+                other: 2
+                duplicate:
+                  key: value
+                """);
+    }
+
+    @Test
+    void loadsEmptyFiles() throws IOException {
+        assertLoadedAsYaml("");
+        assertLoadedAsYaml("---\n");
+        assertLoadedAsYaml("# only a comment\n");
+    }
+
+    @Test
+    void readsNonStringKeys() throws IOException {
+        String text = """
+                1: int key
+                true: bool key
+                ~: null key
+                2:
+                  3: nested
+                1: duplicate
+                """;
+        assertLoadedAsYaml(text);
+
+        // built from parse events, without a full load
+        Configuration config = ConfigurationLoader.fromFile(new File(directory.toFile(), "config.yml")).load();
+        assertNotNull(ConfigurationReader.read(config, new Yaml(), new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void fallsBackToFullLoad() throws IOException {
+        assertLoadedAsYaml("""
+                base: &base
+                  a: 1
+                derived:
+                  <<: *base
+                  b: 2
+                list: &list [ 1, 2 ]
+                copy: *list
+                """);
+        assertLoadedAsYaml("""
+                1: int key
+                '1': string key
+                two: 2
+                """);
+        assertLoadedAsYaml("""
+                set: !!set { a, b }
+                tagged: !!str 1
+                """);
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MergeTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    private Configuration load(String name) {
+        return ConfigurationLoader
+                .fromFile(new File(directory.toFile(), name))
+                .setDefaultResource(FILE_NAME)
+                .load();
+    }
+
+    private Configuration prepare() {
+        Configuration config = load("config.yml");
+        config.set("a.x", 1);
+        config.set("a.list", List.of(1));
+        config.set("b", "text");
+        return config;
+    }
+
+    private static Map<String, Object> source() {
+        return Map.of(
+                "a", Map.of("x", 2, "y", 3, "list", List.of(2)),
+                "b", Map.of("c", 4),
+                "d", TestEnum.TEST_1
+        );
+    }
+
+    @Test
+    void overwrites() {
+        Configuration config = prepare();
+        config.merge(source(), MergePolicy.OVERWRITE);
+
+        assertEquals(2, config.getInt("a.x"));
+        assertEquals(3, config.getInt("a.y"));
+        assertEquals(List.of(2), config.getIntList("a.list"));
+        assertEquals(4, config.getInt("b.c"));
+        assertEquals("TEST_1", config.getString("d"));
+    }
+
+    @Test
+    void keepsExisting() {
+        Configuration config = prepare();
+        config.merge(source(), MergePolicy.KEEP_EXISTING);
+
+        assertEquals(1, config.getInt("a.x"));
+        assertEquals(3, config.getInt("a.y"));
+        assertEquals(List.of(1), config.getIntList("a.list"));
+        assertEquals("text", config.getString("b"));
+        assertEquals("TEST_1", config.getString("d"));
+    }
+
+    @Test
+    void concatenatesLists() {
+        Configuration config = prepare();
+        config.merge(source(), MergePolicy.CONCATENATE_LISTS);
+
+        assertEquals(2, config.getInt("a.x"));
+        assertEquals(List.of(1, 2), config.getIntList("a.list"));
+        assertEquals(4, config.getInt("b.c"));
+    }
+
+    @Test
+    void mergesAtOnce() throws IOException {
+        Configuration source = load("source.yml");
+        source.set("a.y", 3);
+        source.set("e.f", true);
+
+        Configuration config = ConfigurationLoader
+                .fromFile(new File(directory.toFile(), "config.yml"))
+                .setDefaultResource(FILE_NAME)
+                .autoSave(true)
+                .load();
+        config.set("a.x", 1);
+        List<String> changed = new ArrayList<>();
+        config.addListener(changed::add);
+
+        config.merge(source, MergePolicy.OVERWRITE);
+        config.getSection("e").merge(Map.of("f", true), MergePolicy.OVERWRITE);
+
+        assertEquals(List.of("a.y", "e"), changed);
+        assertEquals("a:\n  x: 1\n  y: 3\ne:\n  f: true\n", Files.readString(new File(directory.toFile(), "config.yml").toPath()));
+    }
+
+    @Test
+    void mergesLayeredSections() {
+        Configuration base = load("base.yml");
+        Configuration top = load("top.yml");
+        base.set("a.x", 1);
+        base.set("a.list", List.of(1));
+
+        LayeredConfiguration layered = LayeredConfiguration.of(base, top);
+        layered.merge(Map.of("a", Map.of("x", 2, "list", List.of(2))), MergePolicy.CONCATENATE_LISTS);
+
+        assertEquals(2, layered.getInt("a.x"));
+        assertEquals(List.of(1, 2), layered.getIntList("a.list"));
+        assertEquals(1, base.getInt("a.x"));
+    }
+
+}
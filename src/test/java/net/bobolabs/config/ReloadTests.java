@@ -34,8 +34,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ReloadTests {
 
@@ -163,4 +162,30 @@ class ReloadTests {
         config.set("enums.list", List.of(TestEnum.TEST_2, TestEnum.TEST_1));
     }
 
+    @Test
+    void keepsContentsOnFailure() throws IOException {
+        Files.writeString(directory.resolve(FILE_NAME), "ints:\n  value: [ 2\n");
+
+        ConfigurationException e = assertThrows(ConfigurationException.class, () -> config.reload());
+        assertNotNull(e.getCause());
+        assertEquals(1, config.getInt("ints.value"));
+        assertEquals(List.of("hello", "Bobo"), config.getStringList("strings.list"));
+
+        Files.writeString(directory.resolve(FILE_NAME), "ints:\n  value: 2\n");
+        config.reload();
+        assertEquals(2, config.getInt("ints.value"));
+        assertFalse(config.contains("strings.list"));
+    }
+
+    @Test
+    void forwardsChangesMadeThroughReplacedTree() {
+        ConfigurationSectionImpl replaced = config.getRootSection();
+        config.reload();
+
+        replaced.set("ints.value", 3);
+        replaced.appendToList("strings.list", "again");
+        assertEquals(3, config.getInt("ints.value"));
+        assertEquals(List.of("again"), config.getStringList("strings.list"));
+    }
+
 }
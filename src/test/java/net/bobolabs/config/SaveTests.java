@@ -0,0 +1,392 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void savesAtomically() throws IOException {
+        for (SyncPolicy policy : SyncPolicy.values()) {
+            File file = new File(directory.toFile(), policy.name().toLowerCase() + ".yml");
+            Configuration config = ConfigurationLoader
+                    .fromFile(file)
+                    .setDefaultResource(FILE_NAME)
+                    .syncPolicy(policy)
+                    .load();
+
+            config.set("a.b", 1);
+            config.save();
+            config.set("a.b", 2);
+            config.save();
+
+            assertEquals("a:\n  b: 2\n", Files.readString(file.toPath()));
+            assertFalse(new File(directory.toFile(), file.getName() + ".tmp").exists());
+        }
+    }
+
+    @Test
+    void skipsUnchangedSaves() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), "a:\n  b: 1\nc:\n- x\n");
+        FileTime stamp = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(file.toPath(), stamp);
+
+        Configuration config = ConfigurationLoader.fromFile(file).load();
+
+        // clean configuration
+        config.save();
+        assertEquals(stamp, Files.getLastModifiedTime(file.toPath()));
+
+        // equal values do not mark the configuration as dirty
+        config.set("a.b", 1);
+        config.set("c", List.of("x"));
+        config.unset("d.e");
+        config.save();
+        assertEquals(stamp, Files.getLastModifiedTime(file.toPath()));
+        assertFalse(config.contains("d"));
+
+        // reverted changes produce the same content
+        config.set("a.b", 2);
+        config.set("a.b", 1);
+        config.save();
+        assertEquals(stamp, Files.getLastModifiedTime(file.toPath()));
+
+        config.set("a.b", 2);
+        config.save();
+        assertNotEquals(stamp, Files.getLastModifiedTime(file.toPath()));
+        assertEquals("a:\n  b: 2\nc:\n- x\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void keepsExternalChangesOfUnchangedConfigurations() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), "a: 1\n");
+
+        Configuration config = ConfigurationLoader.fromFile(file).load();
+        Files.writeString(file.toPath(), "a: 2\n");
+
+        // nothing changed since the configuration was loaded
+        config.save();
+        assertEquals("a: 2\n", Files.readString(file.toPath()));
+
+        config.set("b", 3);
+        config.save();
+        assertEquals("a: 1\nb: 3\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void snapshotsShareUnchangedSections() {
+        File file = new File(directory.toFile(), "config.yml");
+        Configuration config = ConfigurationLoader
+                .fromFile(file)
+                .setDefaultResource(FILE_NAME)
+                .load();
+        config.set("a.b", 1);
+        config.set("c.d", 2);
+
+        Map<String, Object> first = config.getRootSection().snapshot();
+        assertSame(first, config.getRootSection().snapshot());
+
+        config.set("c.d", 3);
+        Map<String, Object> second = config.getRootSection().snapshot();
+        assertNotSame(first, second);
+        assertSame(first.get("a"), second.get("a"));
+        assertEquals(Map.of("d", 2), first.get("c"));
+        assertEquals(Map.of("d", 3), second.get("c"));
+    }
+
+    @Test
+    void savesWithoutBlockingReaders() throws ExecutionException, InterruptedException, TimeoutException, IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Configuration config = ConfigurationLoader
+                .fromFile(file)
+                .setDefaultResource(FILE_NAME)
+                .load();
+        config.set("a", 1);
+
+        config.readLock().lock();
+        try {
+            CompletableFuture.runAsync(config::save).get(10, TimeUnit.SECONDS);
+        } finally {
+            config.readLock().unlock();
+        }
+        assertEquals("a: 1\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void rewritesOnlyChangedBlocks() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), """
+                # header comment
+
+                first:   1    # keep me
+                second:
+                    nested: [ 1, 2 ]   # flow
+                third: |
+                  literal
+                  text
+
+                # about fourth
+                fourth: 'quoted'
+                """);
+
+        Configuration config = ConfigurationLoader.fromFile(file).load();
+        config.set("second.nested", List.of(3));
+        config.unset("third");
+        config.set("fifth", "new");
+        config.save();
+
+        assertEquals("""
+                # header comment
+
+                first:   1    # keep me
+                second:
+                  nested:
+                  - 3
+                # about fourth
+                fourth: 'quoted'
+                fifth: new
+                """, Files.readString(file.toPath()));
+
+        config.set("first", 2);
+        config.save();
+
+        assertEquals("""
+                # header comment
+
+                first: 2
+                second:
+                  nested:
+                  - 3
+                # about fourth
+                fourth: 'quoted'
+                fifth: new
+                """, Files.readString(file.toPath()));
+    }
+
+    @Test
+    void keepsBlocksAfterSupplementaryCharacters() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), """
+                first: "\uD83D\uDE00"   # keep me
+                second: [ "\uD83C\uDF89\uD83C\uDF89", 2 ]   # flow
+                third: 3   # and me
+                """);
+
+        Configuration config = ConfigurationLoader.fromFile(file).load();
+        config.set("second", 1);
+        config.save();
+
+        assertEquals("""
+                first: "\uD83D\uDE00"   # keep me
+                second: 1
+                third: 3   # and me
+                """, Files.readString(file.toPath()));
+    }
+
+    @Test
+    void keepsBlocksWithoutReadingTheFileBack() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.writeString(file.toPath(), "first: 1   # keep me\nsecond: 2\n");
+        Configuration config = ConfigurationLoader.fromFile(file).load();
+
+        // unchanged blocks are copied from the text read when loading, even if the file was replaced since then
+        Files.writeString(file.toPath(), "replaced: true\n");
+        config.set("second", 3);
+        config.save();
+
+        assertEquals("first: 1   # keep me\nsecond: 3\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void savesInParallel() throws IOException {
+        File serialFile = new File(directory.toFile(), "serial.yml");
+        File parallelFile = new File(directory.toFile(), "parallel.yml");
+        Files.writeString(serialFile.toPath(), "# comment\nkept: 1\n");
+        Files.writeString(parallelFile.toPath(), "# comment\nkept: 1\n");
+        Configuration serial = ConfigurationLoader.fromFile(serialFile).load();
+        Configuration parallel = ConfigurationLoader.fromFile(parallelFile).parallelSave(true).load();
+
+        for (Configuration config : List.of(serial, parallel)) {
+            for (int i = 0; i < 500; i++) {
+                config.set("section" + i + ".number", i);
+                config.set("section" + i + ".text", i % 2 == 0 ? "yes" : "caf\u00e9: \"" + i + "\"");
+                config.set("section" + i + ".list", List.of(i, "#" + i, Map.of("key", i)));
+            }
+            config.save();
+        }
+        assertArrayEquals(Files.readAllBytes(serialFile.toPath()), Files.readAllBytes(parallelFile.toPath()));
+        assertTrue(Files.readString(parallelFile.toPath()).startsWith("# comment\nkept: 1\n"));
+
+        for (Configuration config : List.of(serial, parallel)) {
+            for (int i = 0; i < 500; i += 7) {
+                config.set("section" + i + ".number", -i);
+            }
+            config.unset("section1");
+            config.save();
+        }
+        assertArrayEquals(Files.readAllBytes(serialFile.toPath()), Files.readAllBytes(parallelFile.toPath()));
+    }
+
+    @Test
+    void savesAsynchronously() throws IOException, InterruptedException, TimeoutException {
+        File file = new File(directory.toFile(), "config.yml");
+        Files.createFile(file.toPath());
+        Configuration config = ConfigurationLoader.fromFile(file).load();
+
+        config.set("a", 1);
+        CompletableFuture<Void> first = config.saveAsync();
+        config.set("b", 2);
+        CompletableFuture<Void> second = config.saveAsync();
+        assertDoesNotThrow(() -> second.get(5, TimeUnit.SECONDS));
+        assertTrue(first.isDone());
+        assertEquals("a: 1\nb: 2\n", Files.readString(file.toPath()));
+
+        // failures are reported through the future
+        Files.createDirectory(new File(directory.toFile(), "config.yml.tmp").toPath());
+        config.set("c", 3);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> config.saveAsync().get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException);
+        assertEquals("a: 1\nb: 2\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void keepsFilePermissions() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Configuration config = ConfigurationLoader.fromFile(file).setDefaultResource(FILE_NAME).load();
+        if (!Files.getFileStore(file.toPath()).supportsFileAttributeView("posix")) {
+            return;
+        }
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-------");
+        Files.setPosixFilePermissions(file.toPath(), permissions);
+
+        config.set("a", 1);
+        config.save();
+        assertEquals("a: 1\n", Files.readString(file.toPath()));
+        assertEquals(permissions, Files.getPosixFilePermissions(file.toPath()));
+    }
+
+    @Test
+    void deletesTemporaryFileOnFailure() throws IOException {
+        File file = new File(directory.toFile(), "config.yml");
+        Configuration config = ConfigurationLoader.fromFile(file).setDefaultResource(FILE_NAME).load();
+
+        // the file cannot be replaced by the temporary one
+        Files.delete(file.toPath());
+        Files.createDirectories(file.toPath().resolve("child"));
+        config.set("a", 1);
+        assertThrows(IOException.class, config::trySave);
+        assertFalse(new File(directory.toFile(), "config.yml.tmp").exists());
+    }
+
+    @Test
+    void savesInlineWhenQueueIsFullOnScheduler() throws Exception {
+        List<Configuration> configs = new ArrayList<>();
+        for (int i = 0; i <= SaveQueue.MAX_QUEUED_SAVES; i++) {
+            File file = new File(directory.toFile(), "config" + i + ".yml");
+            Files.createFile(file.toPath());
+            Configuration config = ConfigurationLoader.fromFile(file).load();
+            config.set("a", i);
+            configs.add(config);
+        }
+
+        // saves queued by the scheduler itself cannot run until it is done, hence the last one must not wait
+        CompletableFuture<CompletableFuture<?>> submitted = CompletableFuture.supplyAsync(() -> {
+            CompletableFuture<?>[] saves = new CompletableFuture<?>[configs.size()];
+            for (int i = 0; i < saves.length; i++) {
+                saves[i] = configs.get(i).saveAsync();
+            }
+            return CompletableFuture.allOf(saves);
+        }, Scheduler.EXECUTOR);
+        submitted.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < configs.size(); i++) {
+            assertEquals("a: " + i + "\n", Files.readString(new File(directory.toFile(), "config" + i + ".yml").toPath()));
+        }
+    }
+
+    @Test
+    void savesInlineWhenQueueIsFull() throws Exception {
+        List<Configuration> configs = new ArrayList<>();
+        for (int i = 0; i <= SaveQueue.MAX_QUEUED_SAVES; i++) {
+            File file = new File(directory.toFile(), "config" + i + ".yml");
+            Files.createFile(file.toPath());
+            Configuration config = ConfigurationLoader.fromFile(file).load();
+            config.set("a", i);
+            configs.add(config);
+        }
+
+        // the scheduler is kept busy, e.g. by a save waiting for a lock held by the caller
+        CountDownLatch busy = new CountDownLatch(1);
+        Scheduler.EXECUTOR.execute(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            CompletableFuture<?>[] saves = new CompletableFuture<?>[configs.size()];
+            for (int i = 0; i < saves.length; i++) {
+                saves[i] = configs.get(i).saveAsync();
+            }
+            // the queue is full, hence the last save was performed right away rather than waiting
+            assertTrue(saves[saves.length - 1].isDone());
+            assertEquals("a: " + SaveQueue.MAX_QUEUED_SAVES + "\n",
+                    Files.readString(new File(directory.toFile(), "config" + SaveQueue.MAX_QUEUED_SAVES + ".yml").toPath()));
+            assertFalse(saves[0].isDone());
+
+            busy.countDown();
+            CompletableFuture.allOf(saves).get(5, TimeUnit.SECONDS);
+        } finally {
+            busy.countDown();
+        }
+        assertEquals("a: 0\n", Files.readString(new File(directory.toFile(), "config0.yml").toPath()));
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedConfigurationTests {
+
+    @TempDir
+    Path directory;
+
+    private ShardedConfiguration load(boolean autoSave) {
+        return ConfigurationLoader
+                .fromFile(directory.resolve("users").toFile())
+                .autoSave(autoSave)
+                .loadSharded();
+    }
+
+    private File shardFile(String key) {
+        return directory.resolve("users").resolve(key + ".yml").toFile();
+    }
+
+    @Test
+    void storesEachShardInItsOwnFile() throws IOException {
+        ShardedConfiguration config = load(true);
+        config.set("alice.coins", 10);
+        config.set("alice.items", List.of("sword"));
+        config.set("bob", Map.of("coins", 5));
+
+        assertEquals("coins: 10\nitems:\n- sword\n", Files.readString(shardFile("alice").toPath()));
+        assertEquals("coins: 5\n", Files.readString(shardFile("bob").toPath()));
+        assertEquals(10, config.getInt("alice.coins"));
+        assertEquals(List.of("sword"), config.getStringList("alice.items"));
+        assertSame(config.getShard("bob"), config.getSection("bob"));
+    }
+
+    @Test
+    void loadsShardsOnDemand() throws IOException {
+        Files.createDirectories(directory.resolve("users"));
+        Files.writeString(shardFile("alice").toPath(), "coins: 10\n");
+        Files.writeString(shardFile("bob").toPath(), "coins: 5\n");
+
+        ShardedConfiguration config = load(false);
+        assertTrue(config.getLoadedShards().isEmpty());
+
+        assertEquals(10, config.getInt("alice.coins"));
+        assertEquals(Set.of("alice"), config.getLoadedShards().keySet());
+
+        assertFalse(config.contains("carol"));
+        assertFalse(config.contains("carol.coins"));
+        assertFalse(shardFile("carol").exists());
+
+        assertEquals(Set.of("alice", "bob"), config.getKeys(TraversalMode.ROOT));
+        assertEquals(Set.of("alice.coins", "bob.coins"), config.getKeys(TraversalMode.LEAVES));
+    }
+
+    @Test
+    void savesOnlyChangedShards() throws IOException {
+        ShardedConfiguration config = load(false);
+        config.set("alice.coins", 10);
+        config.set("bob.coins", 5);
+        config.save();
+
+        long modified = shardFile("bob").lastModified();
+        config.set("alice.coins", 11);
+        config.save();
+
+        assertEquals("coins: 11\n", Files.readString(shardFile("alice").toPath()));
+        // bob was not changed, hence its file was not written again
+        assertEquals(modified, shardFile("bob").lastModified());
+    }
+
+    @Test
+    void replacesAndDeletesShards() throws IOException {
+        ShardedConfiguration config = load(true);
+        config.set("alice", Map.of("coins", 10, "level", 1));
+        config.set("alice", Map.of("coins", 20));
+        assertEquals("coins: 20\n", Files.readString(shardFile("alice").toPath()));
+
+        config.unset("alice");
+        assertFalse(config.contains("alice"));
+        assertFalse(shardFile("alice").exists());
+
+        assertThrows(IllegalArgumentException.class, () -> config.set("alice", 1));
+        assertThrows(IllegalArgumentException.class, () -> config.set("../alice.coins", 1));
+    }
+
+    @Test
+    void deletesRemovedShardsForGood() throws Exception {
+        ShardedConfiguration config = ConfigurationLoader
+                .fromFile(directory.resolve("users").toFile())
+                .journal(true)
+                .loadSharded();
+        config.set("alice.coins", 10);
+        File journal = directory.resolve("users").resolve("alice.yml.journal").toFile();
+        assertTrue(journal.exists());
+
+        Configuration removed = config.getShard("alice");
+        config.unset("alice");
+        assertFalse(shardFile("alice").exists());
+        assertFalse(journal.exists());
+
+        // saves requested after removal, e.g. by a delayed auto save, do not write it again
+        removed.set("coins", 20);
+        removed.saveAsync().get(5, TimeUnit.SECONDS);
+        assertFalse(shardFile("alice").exists());
+        assertFalse(journal.exists());
+    }
+
+    @Test
+    void unloadsShards() {
+        ShardedConfiguration config = load(false);
+        config.set("alice.coins", 10);
+        config.unload("alice");
+        assertTrue(config.getLoadedShards().isEmpty());
+        assertEquals(10, config.getInt("alice.coins"));
+    }
+
+    @Test
+    void closesUnloadedShards() throws IOException {
+        ShardedConfiguration config = ConfigurationLoader
+                .fromFile(directory.resolve("users").toFile())
+                .journal(1, TimeUnit.HOURS)
+                .loadSharded();
+        config.set("alice.coins", 10);
+        config.set("bob.coins", 5);
+        File journal = directory.resolve("users").resolve("alice.yml.journal").toFile();
+        assertTrue(journal.length() > 0);
+
+        config.close();
+        assertTrue(config.getLoadedShards().isEmpty());
+        assertEquals("coins: 10\n", Files.readString(shardFile("alice").toPath()));
+        assertEquals("coins: 5\n", Files.readString(shardFile("bob").toPath()));
+        assertEquals(0, journal.length());
+    }
+
+    @Test
+    void loadsEachShardOnce() throws Exception {
+        ShardedConfiguration config = load(false);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Configuration>> shards = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                shards.add(executor.submit(() -> {
+                    start.await();
+                    return config.getShard("alice");
+                }));
+            }
+            start.countDown();
+            for (Future<Configuration> shard : shards) {
+                assertSame(config.getShard("alice"), shard.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SystemOverridesTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void afterEach() {
+        System.clearProperty("test.server.name");
+        System.clearProperty("test.server.slots");
+        System.clearProperty("test.motd");
+    }
+
+    @Test
+    void mapsEnvironmentNamesToPaths() {
+        assertEquals("server.name", ConfigurationOverrides.toPath("SERVER_NAME"));
+        assertEquals("server.max_players", ConfigurationOverrides.toPath("SERVER_MAX__PLAYERS"));
+
+        // environment names match keys of the file regardless of case, exact matches first
+        Map<String, Object> tree = Map.of("Server", Map.of("maxPlayers", 20), "motd", "hi", "MOTD", "hello");
+        assertEquals("Server.maxPlayers", ConfigurationOverrides.matchCase("server.maxplayers", tree));
+        assertEquals("motd", ConfigurationOverrides.matchCase("motd", tree));
+        assertEquals("other.value", ConfigurationOverrides.matchCase("other.value", tree));
+    }
+
+    @Test
+    void overridesFileValues() throws IOException {
+        File file = new File(directory.toFile(), FILE_NAME);
+        Files.writeString(file.toPath(), "server:\n  name: lobby\n  slots: 100\n");
+
+        System.setProperty("test.server.name", "hub");
+        System.setProperty("test.motd", "[hello, world]");
+
+        Configuration config = ConfigurationLoader
+                .fromFile(file)
+                .systemOverrides("TEST_BOBOCONFIG_", "test.")
+                .load();
+
+        assertEquals("hub", config.getString("server.name"));
+        assertEquals("hub", config.getSection("server").getString("name"));
+        assertEquals(100, config.getInt("server.slots"));
+        assertEquals(List.of("hello", "world"), config.getStringList("motd"));
+        assertEquals("hub", LayeredConfiguration.of(config).getString("server.name"));
+
+        // overrides are never written to file
+        config.save();
+        assertEquals("lobby", ConfigurationLoader.fromFile(file).load().getString("server.name"));
+    }
+
+    @Test
+    void snapshotsOnReload() throws IOException {
+        File file = new File(directory.toFile(), FILE_NAME);
+        Files.writeString(file.toPath(), "server:\n  slots: 100\n");
+
+        Configuration config = ConfigurationLoader
+                .fromFile(file)
+                .systemOverrides("TEST_BOBOCONFIG_", "test.")
+                .load();
+
+        System.setProperty("test.server.slots", "20");
+        assertEquals(100, config.getInt("server.slots"));
+
+        config.reload();
+        assertEquals(20, config.getInt("server.slots"));
+    }
+
+    @Test
+    void disabledByDefault() throws IOException {
+        File file = new File(directory.toFile(), FILE_NAME);
+        Files.writeString(file.toPath(), "server:\n  name: lobby\n");
+
+        System.setProperty("config.server.name", "hub");
+        try {
+            Configuration config = ConfigurationLoader.fromFile(file).load();
+            assertEquals("lobby", config.getString("server.name"));
+        } finally {
+            System.clearProperty("config.server.name");
+        }
+    }
+
+}
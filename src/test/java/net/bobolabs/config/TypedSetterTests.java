@@ -0,0 +1,119 @@
+/*
+ * This file is part of BoboConfig.
+ *
+ * Copyright (C) 2023-2024 BoboLabs.net
+ * Copyright (C) 2023-2024 Mattia Mignogna (https://stami.bobolabs.net)
+ * Copyright (C) 2023-2024 Fabio Nebbia (https://glowy.bobolabs.net)
+ * Copyright (C) 2023-2024 Third party contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.bobolabs.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypedSetterTests {
+
+    static final String FILE_NAME = "empty_config.yml";
+
+    @TempDir
+    Path directory;
+
+    private File file() {
+        return new File(directory.toFile(), "config.yml");
+    }
+
+    @Test
+    void setsTypedValues() throws IOException {
+        Configuration config = ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .load();
+
+        config.setInt("a.int", 1);
+        config.setLong("a.long", 10000000000L);
+        config.setDouble("a.double", 0.5);
+        config.setBoolean("a.boolean", true);
+        config.setString("a.string", "text");
+        config.setEnum("a.enum", TestEnum.TEST_2);
+        config.setIntList("b.ints", new int[]{1, 2});
+        config.setLongList("b.longs", new long[]{3});
+        config.setDoubleList("b.doubles", new double[]{1.5});
+        config.setBooleanList("b.booleans", new boolean[]{false, true});
+
+        assertEquals(1, config.getInt("a.int"));
+        assertEquals(10000000000L, config.getLong("a.long"));
+        assertEquals(0.5, config.getDouble("a.double"));
+        assertTrue(config.getBoolean("a.boolean"));
+        assertEquals("text", config.getString("a.string"));
+        assertEquals(TestEnum.TEST_2, config.getEnum("a.enum", TestEnum.class));
+        assertEquals(List.of(1, 2), config.getIntList("b.ints"));
+        assertEquals(List.of(3L), config.getLongList("b.longs"));
+        assertEquals(List.of(1.5), config.getDoubleList("b.doubles"));
+        assertEquals(List.of(false, true), config.getBooleanList("b.booleans"));
+
+        config.save();
+        assertEquals("""
+                a:
+                  int: 1
+                  long: 10000000000
+                  double: 0.5
+                  boolean: true
+                  string: text
+                  enum: TEST_2
+                b:
+                  ints:
+                  - 1
+                  - 2
+                  longs:
+                  - 3
+                  doubles:
+                  - 1.5
+                  booleans:
+                  - false
+                  - true
+                """, Files.readString(file().toPath()));
+    }
+
+    @Test
+    void onlyNotifiesChanges() {
+        Configuration config = ConfigurationLoader
+                .fromFile(file())
+                .setDefaultResource(FILE_NAME)
+                .load();
+        List<String> changed = new ArrayList<>();
+        config.addListener(changed::add);
+
+        config.setInt("a", 1);
+        config.setInt("a", 1);
+        config.set("b", 1);
+        config.setIntList("b", new int[]{1});
+        config.setIntList("b", new int[]{1});
+        config.setString("a", null);
+
+        assertFalse(config.contains("a"));
+        assertEquals(List.of("a", "b", "b", "a"), changed);
+    }
+
+}